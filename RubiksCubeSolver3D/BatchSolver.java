@@ -0,0 +1,136 @@
+package RubiksCubeSolver3D;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch solver: reads one scramble per line (moves in the notation of the move buttons, separated by
+ * spaces or commas, or a 54 letter facelet string as read by CubeState.setFaceletString) from a file or stdin,
+ * solves them on all cores and writes one line per scramble, in input order:
+ * line number, move count, solve time in milliseconds and the solution, separated by tabs.
+ * Only a few scrambles per thread are in flight at any time, so arbitrarily large inputs stream through in constant memory.
+ *
+ * Usage: BatchSolver [--solver fridrich|kociemba|optimal] [--threads n] [file]
+ */
+
+public class BatchSolver {
+
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final String solver;
+    private final ForkJoinPool pool;
+
+    private BatchSolver(String solver, int threads) {
+        this.solver = solver;
+        pool = new ForkJoinPool(threads);
+    }
+
+    private String solveLine(long lineNumber, String line) {
+        try {
+            String scramble = line.trim();
+            CubeState state = new CubeState();
+            if (scramble.length() == CubeState.FACELETS && scramble.indexOf(' ') < 0 && scramble.indexOf(',') < 0)
+                state.setFaceletString(scramble);
+            else
+                for (String move : scramble.split("[\\s,]+"))
+                    state.applyMove(move);
+            long startTime = System.nanoTime();
+            String[] moves = solve(state);
+            double milliseconds = (System.nanoTime() - startTime) / 1e6;
+            if (moves == null)
+                return lineNumber + "\tERROR\tUnsolvable cube";
+            return String.format("%d\t%d\t%.3f\t%s", lineNumber, moves.length, milliseconds, String.join(" ", moves));
+        } catch (RuntimeException e) {
+            return lineNumber + "\tERROR\t" + e.getMessage();
+        }
+    }
+
+    private String[] solve(CubeState state) {
+        switch (solver) {
+            case "kociemba":
+                return TwoPhaseSolver.solve(state);
+            case "optimal":
+                return new OptimalSolver(state).solve(pool);
+            default:
+                return FridrichSolver.solveShortest(state, pool);
+        }
+    }
+
+    /**
+     * Solves every non-empty line of the input, writing the results as soon as all the earlier ones are written.
+     */
+    private void run(BufferedReader input, PrintWriter output) throws IOException {
+        ArrayDeque<Future<String>> inFlight = new ArrayDeque<>();
+        int maxInFlight = pool.getParallelism() * TASKS_PER_THREAD;
+        long lineNumber = 0, solved = 0, startTime = System.nanoTime();
+        String line;
+        while ((line = input.readLine()) != null) {
+            lineNumber ++;
+            if (line.trim().isEmpty())
+                continue;
+            long finalLineNumber = lineNumber;
+            String finalLine = line;
+            inFlight.add(pool.submit(() -> solveLine(finalLineNumber, finalLine)));
+            if (inFlight.size() >= maxInFlight) {
+                writeResult(inFlight.poll(), output);
+                solved ++;
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            writeResult(inFlight.poll(), output);
+            solved ++;
+        }
+        output.flush();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.err.printf("%,d scrambles in %.2f s, %,.1f scrambles/s%n", solved, seconds, solved / seconds);
+    }
+
+    private static void writeResult(Future<String> result, PrintWriter output) {
+        if (!result.isDone())
+            output.flush();
+        try {
+            output.println(result.get());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String solver = "fridrich", file = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int count = 0; count < args.length; count ++)
+            if (args[count].equals("--solver") && count + 1 < args.length)
+                solver = args[++ count];
+            else if (args[count].equals("--threads") && count + 1 < args.length)
+                threads = Integer.parseInt(args[++ count]);
+            else
+                file = args[count];
+        if (!solver.equals("fridrich") && !solver.equals("kociemba") && !solver.equals("optimal")) {
+            System.err.println("Unknown solver " + solver + ", expected fridrich, kociemba or optimal");
+            System.exit(1);
+        }
+        if (solver.equals("kociemba"))
+            TwoPhaseSolver.prepare();
+        else if (solver.equals("optimal"))
+            OptimalSolver.prepare();
+        BatchSolver batchSolver = new BatchSolver(solver, threads);
+        try (InputStream stream = file == null ? System.in : new FileInputStream(file);
+             BufferedReader input = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+             PrintWriter output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)))) {
+            batchSolver.run(input, output);
+        } finally {
+            batchSolver.pool.shutdown();
+        }
+    }
+}
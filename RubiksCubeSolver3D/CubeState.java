@@ -0,0 +1,583 @@
+package RubiksCubeSolver3D;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Headless sticker model of the Rubik's cube.
+ * Keeps the 54 visible facelets as color indexes, so the solver can turn layers
+ * without touching the JavaFX scene graph.
+ */
+
+public class CubeState {
+
+    static final int CUBE_DIMENSION = 3;
+    static final int FACES = 6;
+    static final int FACELETS = FACES * CUBE_DIMENSION * CUBE_DIMENSION;
+    static final int BLACK = 6;
+
+    static final int[][] centralPieces = {
+            {1, 1, 2},
+            {1, 2, 1},
+            {1, 1, 0},
+            {1, 0, 1},
+            {0, 1, 1},
+            {2, 1, 1}
+    };
+    static final int[][] edgePieces = {
+            {1, 0, 2},
+            {1, 2, 2},
+            {1, 2, 0},
+            {1, 0, 0},
+            {0, 1, 2},
+            {2, 1, 2},
+            {2, 1, 0},
+            {0, 1, 0},
+            {0, 0, 1},
+            {0, 2, 1},
+            {2, 2, 1},
+            {2, 0, 1}
+    };
+    static final int[][] cornerPieces = {
+            {0, 0, 2},
+            {0, 2, 2},
+            {2, 2, 2},
+            {2, 0, 2},
+            {0, 0, 0},
+            {0, 2, 0},
+            {2, 2, 0},
+            {2, 0, 0}
+    };
+    static final int[][] keepFaces = {
+            {4, 5},
+            {1, 3},
+            {0, 2},
+    };
+    static final int[][] switchFaces = {
+            {0, 1, 2, 3, 0, 1, 2, 3},
+            {0, 4, 2, 5, 0, 4, 2, 5},
+            {1, 5, 3, 4, 1, 5, 3, 4},
+    };
+
+    static final String[] MOVES = {"L", "L'", "R", "R'", "U", "U'", "D", "D'", "F", "F'", "B", "B'", "M", "M'", "E", "E'", "S", "S'", "x", "x'", "y", "y'", "z", "z'",
+            "L2", "R2", "U2", "D2", "F2", "B2", "M2", "E2", "S2", "x2", "y2", "z2"};
+
+    private static final int[][][][] faceletIndex = setupFaceletIndex();
+    private static final HashMap<String, Integer> moveIndexes = new HashMap<>();
+    private static final byte[][] movePermutations = setupMovePermutations();
+    private static final byte[][] inverseMovePermutations = setupInverseMovePermutations();
+    private static final int[][] pieceFacelets = setupPieceFacelets();
+    private static final int[][] faceletPositions = setupFaceletPositions();
+    private static final String FACELET_STRING_FACES = "URFDLB";
+    private static final int[] faceletStringFaces = {1, 5, 0, 3, 4, 2};
+    private static final byte[] faceOfLetter = setupFaceOfLetter();
+
+    private byte[] facelets = new byte[FACELETS];
+    private byte[] buffer = new byte[FACELETS];
+    private final int[] colorCounts = new int[BLACK + 1];
+    private final byte[] pieceLocations = new byte[cornerPieces.length + edgePieces.length];
+    private final byte[] pieceOfColors = new byte[1 << FACES];
+    private boolean pieceLocationsStale = true;
+
+    public CubeState() {
+        for (int count = 0; count < FACELETS; count ++)
+            facelets[count] = (byte) (count / (CUBE_DIMENSION * CUBE_DIMENSION));
+        Arrays.fill(colorCounts, 0, FACES, CUBE_DIMENSION * CUBE_DIMENSION);
+    }
+
+    public CubeState(CubeState state) {
+        System.arraycopy(state.facelets, 0, facelets, 0, FACELETS);
+        System.arraycopy(state.colorCounts, 0, colorCounts, 0, colorCounts.length);
+        if (!state.pieceLocationsStale) {
+            System.arraycopy(state.pieceLocations, 0, pieceLocations, 0, pieceLocations.length);
+            System.arraycopy(state.pieceOfColors, 0, pieceOfColors, 0, pieceOfColors.length);
+            pieceLocationsStale = false;
+        }
+    }
+
+    /**
+     * Facelets are stored face by face (in the face order used by the cube), each face
+     * row by row as seen from outside: U with B on top, D with F on top, the side faces with U on top.
+     */
+    private static int[][][][] setupFaceletIndex() {
+        int[][][][] faceletIndex = new int[CUBE_DIMENSION][CUBE_DIMENSION][CUBE_DIMENSION][FACES];
+        for (int[][][] plane : faceletIndex)
+            for (int[][] row : plane)
+                for (int[] faces : row)
+                    Arrays.fill(faces, -1);
+
+        for (int face = 0; face < FACES; face ++)
+            for (int row = 0; row < CUBE_DIMENSION; row ++)
+                for (int column = 0; column < CUBE_DIMENSION; column ++) {
+                    int index = face * CUBE_DIMENSION * CUBE_DIMENSION + row * CUBE_DIMENSION + column;
+                    switch (face) {
+                        case 0:
+                            faceletIndex[column][2 - row][2][face] = index;
+                            break;
+                        case 1:
+                            faceletIndex[column][2][row][face] = index;
+                            break;
+                        case 2:
+                            faceletIndex[2 - column][2 - row][0][face] = index;
+                            break;
+                        case 3:
+                            faceletIndex[column][0][2 - row][face] = index;
+                            break;
+                        case 4:
+                            faceletIndex[0][2 - row][column][face] = index;
+                            break;
+                        case 5:
+                            faceletIndex[2][2 - row][2 - column][face] = index;
+                            break;
+                    }
+                }
+        return faceletIndex;
+    }
+
+    static int getFaceletIndex(int x, int y, int z, int face) {
+        return faceletIndex[x][y][z][face];
+    }
+
+    public int get(int x, int y, int z, int face) {
+        int index = faceletIndex[x][y][z][face];
+        return index < 0 ? BLACK : facelets[index];
+    }
+
+    public void set(int x, int y, int z, int face, int color) {
+        int index = faceletIndex[x][y][z][face];
+        if (index >= 0)
+            setFacelet(index, color);
+    }
+
+    int getFacelet(int index) {
+        return facelets[index];
+    }
+
+    /**
+     * Every facelet change goes through here, so the color counts stay up to date; moves only swap facelets around.
+     */
+    void setFacelet(int index, int color) {
+        colorCounts[facelets[index]] --;
+        colorCounts[color] ++;
+        facelets[index] = (byte) color;
+        pieceLocationsStale = true;
+    }
+
+    /**
+     * Number of facelets with the given color, 9 for each color on a correctly painted cube.
+     */
+    public int getColorCount(int color) {
+        return colorCounts[color];
+    }
+
+    private static byte[] setupFaceOfLetter() {
+        byte[] faceOfLetter = new byte[128];
+        Arrays.fill(faceOfLetter, (byte) -1);
+        for (int count = 0; count < FACES; count ++)
+            faceOfLetter[FACELET_STRING_FACES.charAt(count)] = (byte) faceletStringFaces[count];
+        return faceOfLetter;
+    }
+
+    /**
+     * Sets the stickers from a facelet string: 54 letters naming the face whose center has the color of the sticker,
+     * face by face in the order U R F D L B, each face row by row like the facelets here (the same layout as Kociemba's).
+     * A letter becomes the color of that face on a solved cube. The string is checked before anything changes,
+     * and nothing is allocated unless it is wrong, so batch tools can reuse one CubeState for millions of strings.
+     */
+    public void setFaceletString(CharSequence faceletString) {
+        if (faceletString.length() != FACELETS)
+            throw new IllegalArgumentException("A facelet string has " + FACELETS + " letters, not " + faceletString.length());
+        for (int count = 0; count < FACELETS; count ++) {
+            char letter = faceletString.charAt(count);
+            int face = letter < faceOfLetter.length ? faceOfLetter[letter] : -1;
+            if (face < 0)
+                throw new IllegalArgumentException("Unknown face " + letter + " at position " + (count + 1) + ", expected one of " + FACELET_STRING_FACES);
+            if (count % 9 == 4 && face != faceletStringFaces[count / 9])
+                throw new IllegalArgumentException("The center of the " + FACELET_STRING_FACES.charAt(count / 9) + " face must be " + FACELET_STRING_FACES.charAt(count / 9) + ", not " + letter);
+        }
+        for (int count = 0; count < FACELETS; count ++)
+            setFacelet(faceletStringFaces[count / 9] * 9 + count % 9, faceOfLetter[faceletString.charAt(count)]);
+    }
+
+    public static CubeState fromFaceletString(CharSequence faceletString) {
+        CubeState state = new CubeState();
+        state.setFaceletString(faceletString);
+        return state;
+    }
+
+    /**
+     * Appends the facelet string of the cube, naming every sticker after the face whose center has its color,
+     * so a cube turned by slice moves or rotations is written as seen in its current orientation.
+     */
+    public void appendFaceletString(StringBuilder builder) {
+        for (int count = 0; count < FACELETS; count ++) {
+            int color = facelets[faceletStringFaces[count / 9] * 9 + count % 9], letter = -1;
+            for (int face = 0; face < FACES; face ++)
+                if (facelets[faceletStringFaces[face] * 9 + 4] == color)
+                    letter = face;
+            if (letter == -1)
+                throw new IllegalArgumentException("No center has the color of facelet " + (count + 1));
+            builder.append(FACELET_STRING_FACES.charAt(letter));
+        }
+    }
+
+    public String toFaceletString() {
+        StringBuilder builder = new StringBuilder(FACELETS);
+        appendFaceletString(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Indexes every corner and edge by the set of its colors, remembering the facelet of one of its stickers.
+     * Moves then only carry those 20 facelets along, until a sticker is painted and the index is built again.
+     */
+    private void locatePieces() {
+        Arrays.fill(pieceOfColors, (byte) -1);
+        for (int count = 0; count < pieceLocations.length; count ++) {
+            int[] piece = count < cornerPieces.length ? cornerPieces[count] : edgePieces[count - cornerPieces.length];
+            int facelet = -1, colors = 0;
+            for (int face = 0; face < FACES; face ++)
+                if (faceletIndex[piece[0]][piece[1]][piece[2]][face] >= 0) {
+                    facelet = faceletIndex[piece[0]][piece[1]][piece[2]][face];
+                    colors |= 1 << facelets[facelet];
+                }
+            pieceLocations[count] = (byte) facelet;
+            pieceOfColors[colors & ((1 << FACES) - 1)] = (byte) count;
+        }
+        pieceLocationsStale = false;
+    }
+
+    /**
+     * Finds the corner or edge with the given colors: returns its x, y and z followed by the face showing each color.
+     */
+    public int[] findPiece(int... colors) {
+        if (pieceLocationsStale)
+            locatePieces();
+        int colorSet = 0;
+        for (int color : colors)
+            colorSet |= 1 << color;
+        int piece = colorSet < pieceOfColors.length ? pieceOfColors[colorSet] : -1;
+        if (piece < 0 || pieceFacelets[pieceLocations[piece]].length != colors.length)
+            throw new IllegalArgumentException("No piece with colors " + Arrays.toString(colors));
+        int[] facelets = pieceFacelets[pieceLocations[piece]];
+        int[] location = new int[3 + colors.length];
+        System.arraycopy(faceletPositions[facelets[0]], 0, location, 0, 3);
+        for (int count = 0; count < colors.length; count ++)
+            for (int facelet : facelets)
+                if (this.facelets[facelet] == colors[count])
+                    location[3 + count] = facelet / (CUBE_DIMENSION * CUBE_DIMENSION);
+        return location;
+    }
+
+    private static int get(byte[] facelets, int x, int y, int z, int face) {
+        int index = faceletIndex[x][y][z][face];
+        return index < 0 ? BLACK : facelets[index];
+    }
+
+    private static void set(byte[] facelets, int x, int y, int z, int face, int color) {
+        int index = faceletIndex[x][y][z][face];
+        if (index >= 0)
+            facelets[index] = (byte) color;
+    }
+
+    /**
+     * Every move is compiled once into a permutation of the facelets: after the move,
+     * facelet i holds the color that was on facelet movePermutations[move][i].
+     * The layer turns are traced on a cube whose facelets are labeled with their own index.
+     * A half turn of a layer is known under the codes of both its quarter turns, as x2 uses "vlt2" where L2 uses "vlb2".
+     */
+    private static byte[][] setupMovePermutations() {
+        byte[][] movePermutations = new byte[MOVES.length][];
+        for (int move = 0; move < MOVES.length; move ++) {
+            CubeState state = new CubeState();
+            for (int count = 0; count < FACELETS; count ++)
+                state.facelets[count] = (byte) count;
+            String quarterMove = MOVES[move].endsWith("2") ? MOVES[move].substring(0, 1) : MOVES[move];
+            for (int turn = 0; turn < (MOVES[move].endsWith("2") ? 2 : 1); turn ++)
+                for (String layerMove : translateMove(quarterMove))
+                    if (layerMove != null)
+                        state.turnLayer(layerMove);
+            movePermutations[move] = state.facelets;
+            moveIndexes.put(MOVES[move], move);
+            if (translateMove(MOVES[move])[1] == null)
+                moveIndexes.put(translateMove(MOVES[move])[0], move);
+        }
+        for (String move : MOVES)
+            if (!move.endsWith("2") && translateMove(move)[1] == null)
+                moveIndexes.put(translateMove(move)[0] + "2", moveIndexes.get(move.charAt(0) + "2"));
+        return movePermutations;
+    }
+
+    private static byte[][] setupInverseMovePermutations() {
+        byte[][] inverseMovePermutations = new byte[MOVES.length][FACELETS];
+        for (int move = 0; move < MOVES.length; move ++)
+            for (int count = 0; count < FACELETS; count ++)
+                inverseMovePermutations[move][movePermutations[move][count]] = (byte) count;
+        return inverseMovePermutations;
+    }
+
+    /**
+     * For every facelet, the facelets of the piece it belongs to, itself first: one for a center, two or three otherwise.
+     */
+    private static int[][] setupPieceFacelets() {
+        int[][] pieceFacelets = new int[FACELETS][];
+        for (int[][][] plane : faceletIndex)
+            for (int[][] row : plane)
+                for (int[] faces : row) {
+                    int[] facelets = new int[3];
+                    int quantity = 0;
+                    for (int face = 0; face < FACES; face ++)
+                        if (faces[face] >= 0)
+                            facelets[quantity ++] = faces[face];
+                    for (int count = 0; count < quantity; count ++) {
+                        pieceFacelets[facelets[count]] = new int[quantity];
+                        for (int count2 = 0; count2 < quantity; count2 ++)
+                            pieceFacelets[facelets[count]][count2] = facelets[(count + count2) % quantity];
+                    }
+                }
+        return pieceFacelets;
+    }
+
+    private static int[][] setupFaceletPositions() {
+        int[][] faceletPositions = new int[FACELETS][];
+        for (int x = 0; x < CUBE_DIMENSION; x ++)
+            for (int y = 0; y < CUBE_DIMENSION; y ++)
+                for (int z = 0; z < CUBE_DIMENSION; z ++)
+                    for (int face = 0; face < FACES; face ++)
+                        if (faceletIndex[x][y][z][face] >= 0)
+                            faceletPositions[faceletIndex[x][y][z][face]] = new int[]{x, y, z};
+        return faceletPositions;
+    }
+
+    static int getMoveIndex(String move) {
+        Integer index = moveIndexes.get(move);
+        if (index == null)
+            throw new IllegalArgumentException("Unknown move " + move);
+        return index;
+    }
+
+    public void applyMove(int move) {
+        byte[] permutation = movePermutations[move];
+        for (int count = 0; count < FACELETS; count ++)
+            buffer[count] = facelets[permutation[count]];
+        byte[] swap = facelets;
+        facelets = buffer;
+        buffer = swap;
+        if (!pieceLocationsStale) {
+            byte[] inversePermutation = inverseMovePermutations[move];
+            for (int count = 0; count < pieceLocations.length; count ++)
+                pieceLocations[count] = inversePermutation[pieceLocations[count]];
+        }
+    }
+
+    /**
+     * Accepts the moves of MOVES as well as the single layer turns ("htl", "vcb", "dfc2", ...) produced by translateMove.
+     */
+    public void applyMove(String move) {
+        applyMove(getMoveIndex(move));
+    }
+
+    private void turnLayer(String move) {
+        byte[] cube = facelets.clone();
+
+        int count, count2, count3, count4;
+        int[] switchCoords = {0, 1, 2, 2, 2, 2, 2, 1, 0, 0, 0, 0, 0, 1, 2, 2, 2, 2, 2, 1, 0, 0, 0, 0};
+        int[] keepCoords = {0, 1, 2, 2, 2, 1, 0, 0, 0, 1, 2, 2, 2, 1, 0, 0};
+
+        int refValue = -1;
+        switch (move.charAt(1)) {
+            case 'l':
+            case 'b':
+                refValue = 0;
+                break;
+            case 'c':
+                refValue = 1;
+                break;
+            case 't':
+            case 'r':
+            case 'f':
+                refValue = 2;
+                break;
+        }
+
+        switch (move.charAt(2)) {
+            case 'l':
+                for (count = 0, count3 = 4; count3 < 8; count3 ++) {
+                    count4 = count3 - 1;
+                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
+                        set(facelets, switchCoords[6 + count], refValue, switchCoords[3 + count], switchFaces[1][count3], get(cube, switchCoords[3 + count], refValue, switchCoords[count], switchFaces[1][count4]));
+                }
+                for (count = 0; count < 8; count ++) {
+                    for (count2 = 0; count2 < 2; count2 ++)
+                        set(facelets, keepCoords[count], refValue, keepCoords[6 + count], keepFaces[1][count2], get(cube, keepCoords[6 + count], refValue, keepCoords[4 + count], keepFaces[1][count2]));
+                }
+                break;
+            case 'r':
+                for (count = 0, count3 = 4; count3 > 0; count3 --) {
+                    count4 = count3 + 1;
+                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
+                        set(facelets, switchCoords[count], refValue, switchCoords[3 + count], switchFaces[1][count3], get(cube, switchCoords[9 + count], refValue, switchCoords[count], switchFaces[1][count4]));
+                }
+                for (count = 0; count < 8; count ++) {
+                    for (count2 = 0; count2 < 2; count2 ++)
+                        set(facelets, keepCoords[count], refValue, keepCoords[6 + count], keepFaces[1][count2], get(cube, keepCoords[2 + count], refValue, keepCoords[count], keepFaces[1][count2]));
+                }
+                break;
+            case 't':
+                for (count = 0, count3 = 4; count3 < 8; count3 ++) {
+                    count4 = count3 - 1;
+                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
+                        set(facelets, refValue, switchCoords[count], switchCoords[3 + count], switchFaces[0][count3], get(cube, refValue, switchCoords[9 + count], switchCoords[count], switchFaces[0][count4]));
+                }
+                for (count = 0; count < 8; count ++) {
+                    for (count2 = 0; count2 < 2; count2 ++)
+                        set(facelets, refValue, keepCoords[count], keepCoords[6 + count], keepFaces[0][count2], get(cube, refValue, keepCoords[2 + count], keepCoords[count], keepFaces[0][count2]));
+                }
+                break;
+            case 'b':
+                for (count = 0, count3 = 4; count3 > 0; count3 --) {
+                    count4 = count3 + 1;
+                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
+                        set(facelets, refValue, switchCoords[6 + count], switchCoords[3 + count], switchFaces[0][count3], get(cube, refValue, switchCoords[3 + count], switchCoords[count], switchFaces[0][count4]));
+                }
+                for (count = 0; count < 8; count ++) {
+                    for (count2 = 0; count2 < 2; count2 ++)
+                        set(facelets, refValue, keepCoords[count], keepCoords[6 + count], keepFaces[0][count2], get(cube, refValue, keepCoords[6 + count], keepCoords[4 + count], keepFaces[0][count2]));
+                }
+                break;
+            case 'c':
+                for (count = 0, count3 = 4; count3 < 8; count3 ++) {
+                    count4 = count3 - 1;
+                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
+                        set(facelets, switchCoords[count], switchCoords[3 + count], refValue, switchFaces[2][count3], get(cube, switchCoords[9 + count], switchCoords[count], refValue, switchFaces[2][count4]));
+                }
+                for (count = 0; count < 8; count ++) {
+                    for (count2 = 0; count2 < 2; count2 ++)
+                        set(facelets, keepCoords[6 + count], keepCoords[count], refValue, keepFaces[2][count2], get(cube, keepCoords[4 + count], keepCoords[6 + count], refValue, keepFaces[2][count2]));
+                }
+                break;
+            case 'a':
+                for (count = 0, count3 = 4; count3 > 0; count3 --) {
+                    count4 = count3 + 1;
+                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
+                        set(facelets, switchCoords[6 + count], switchCoords[3 + count], refValue, switchFaces[2][count3], get(cube, switchCoords[3 + count], switchCoords[count], refValue, switchFaces[2][count4]));
+                }
+                for (count = 0; count < 8; count ++) {
+                    for (count2 = 0; count2 < 2; count2 ++)
+                        set(facelets, keepCoords[6 + count], keepCoords[count], refValue, keepFaces[2][count2], get(cube, keepCoords[count], keepCoords[2 + count], refValue, keepFaces[2][count2]));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Half turns ("U2", "x2", ...) translate to the layer turns of the quarter turn with a trailing '2'.
+     */
+    static String[] translateMove(String singmasterMove) {
+        String[] myMove = new String[3];
+        if (singmasterMove.length() == 2 && singmasterMove.charAt(1) == '2') {
+            myMove = translateMove(singmasterMove.substring(0, 1));
+            for (int count = 0; count < myMove.length; count ++)
+                if (myMove[count] != null)
+                    myMove[count] += "2";
+            return myMove;
+        }
+        switch (singmasterMove) {
+            case "U":
+                myMove[0] = "htl";
+                break;
+            case "U'":
+                myMove[0] = "htr";
+                break;
+            case "E":
+                myMove[0] = "hcr";
+                break;
+            case "E'":
+                myMove[0] = "hcl";
+                break;
+            case "D":
+                myMove[0] = "hbr";
+                break;
+            case "D'":
+                myMove[0] = "hbl";
+                break;
+            case "L":
+                myMove[0] = "vlb";
+                break;
+            case "L'":
+                myMove[0] = "vlt";
+                break;
+            case "M":
+                myMove[0] = "vcb";
+                break;
+            case "M'":
+                myMove[0] = "vct";
+                break;
+            case "R":
+                myMove[0] = "vrt";
+                break;
+            case "R'":
+                myMove[0] = "vrb";
+                break;
+            case "F":
+                myMove[0] = "dfc";
+                break;
+            case "F'":
+                myMove[0] = "dfa";
+                break;
+            case "S":
+                myMove[0] = "dcc";
+                break;
+            case "S'":
+                myMove[0] = "dca";
+                break;
+            case "B":
+                myMove[0] = "dba";
+                break;
+            case "B'":
+                myMove[0] = "dbc";
+                break;
+            case "x":
+                myMove[0] = "vlt";
+                myMove[1] = "vct";
+                myMove[2] = "vrt";
+                break;
+            case "x'":
+                myMove[0] = "vlb";
+                myMove[1] = "vcb";
+                myMove[2] = "vrb";
+                break;
+            case "y":
+                myMove[0] = "htl";
+                myMove[1] = "hcl";
+                myMove[2] = "hbl";
+                break;
+            case "y'":
+                myMove[0] = "htr";
+                myMove[1] = "hcr";
+                myMove[2] = "hbr";
+                break;
+            case "z":
+                myMove[0] = "dfc";
+                myMove[1] = "dcc";
+                myMove[2] = "dbc";
+                break;
+            case "z'":
+                myMove[0] = "dfa";
+                myMove[1] = "dca";
+                myMove[2] = "dba";
+                break;
+        }
+        return myMove;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof CubeState && Arrays.equals(facelets, ((CubeState) object).facelets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(facelets);
+    }
+}
@@ -0,0 +1,105 @@
+package RubiksCubeSolver3D;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Translate;
+
+/**
+ * One cubie drawn as a single mesh: six squares, two triangles each, in the face order of the cube (F U B D L R).
+ * All cubies share one material whose diffuse map is an atlas of the color images side by side, so the color of a face
+ * is only a choice of texture coordinates and repainting it never touches the scene graph.
+ * A cubie stays in its slot for good: a layer turn animates its Rotate about the center of the cube,
+ * then puts the angle back to 0 and shows the new colors.
+ */
+
+final class CubieMesh extends MeshView {
+
+    private static final int CORNERS = 4;
+    private static final int TRIANGLE_VALUES = 6;
+    private static final int FACE_VALUES = 2 * TRIANGLE_VALUES;
+
+    /**
+     * Point indexes are x + 2y + 4z, each bit selecting the positive side of its axis (right, down, back).
+     * Every face lists its corners top left, top right, bottom right, bottom left as seen from outside,
+     * with U seen with B on top and D with F on top, like the facelets of CubeState.
+     */
+    private static final int[][] faceCorners = {
+            {0, 1, 3, 2},
+            {4, 5, 1, 0},
+            {5, 4, 6, 7},
+            {2, 3, 7, 6},
+            {4, 0, 2, 6},
+            {1, 5, 7, 3}
+    };
+    /**
+     * The two triangles of a square, counter-clockwise seen from outside so that their front faces point out.
+     */
+    private static final int[] triangleCorners = {0, 3, 2, 0, 2, 1};
+
+    private final TriangleMesh mesh = new TriangleMesh();
+    private final int[] faceValues = new int[FACE_VALUES];
+    private final int[] colors = new int[faceCorners.length];
+    private final Rotate layerRotate = new Rotate();
+
+    /**
+     * The cubie is drawn centered on x, y, z; the layer rotation comes before that translation, so it turns about the origin.
+     */
+    CubieMesh(double side, int colorCount, PhongMaterial atlasMaterial, double x, double y, double z) {
+        float half = (float) side / 2;
+        for (int point = 0; point < 8; point ++)
+            mesh.getPoints().addAll((point & 1) == 0 ? - half : half, (point & 2) == 0 ? - half : half, (point & 4) == 0 ? - half : half);
+        for (int color = 0; color < colorCount; color ++) {
+            float left = (color + 0.01f) / colorCount, right = (color + 0.99f) / colorCount;
+            mesh.getTexCoords().addAll(left, 0.01f, right, 0.01f, right, 0.99f, left, 0.99f);
+        }
+        for (int face = 0; face < faceCorners.length; face ++) {
+            mesh.getFaces().addAll(new int[FACE_VALUES]);
+            mesh.getFaceSmoothingGroups().addAll(1 << face, 1 << face);
+            colors[face] = -1;
+            setColor(face, CubeState.BLACK);
+        }
+        setMesh(mesh);
+        setMaterial(atlasMaterial);
+        getTransforms().addAll(layerRotate, new Translate(x, y, z));
+    }
+
+    Rotate getLayerRotate() {
+        return layerRotate;
+    }
+
+    /**
+     * Rewrites the texture coordinate indexes of the face so that it shows the given cell of the atlas.
+     */
+    void setColor(int face, int color) {
+        if (colors[face] == color)
+            return;
+        colors[face] = color;
+        for (int count = 0; count < triangleCorners.length; count ++) {
+            faceValues[2 * count] = faceCorners[face][triangleCorners[count]];
+            faceValues[2 * count + 1] = color * CORNERS + triangleCorners[count];
+        }
+        mesh.getFaces().set(face * FACE_VALUES, faceValues, 0, FACE_VALUES);
+    }
+
+    /**
+     * The face of the cube under a triangle reported by PickResult.getIntersectedFace, or -1 when no triangle was hit.
+     */
+    static int faceOfTriangle(int triangle) {
+        return triangle < 0 ? -1 : triangle / 2;
+    }
+
+    /**
+     * Draws the images, which must all have the same size, next to each other in one texture.
+     */
+    static Image createAtlas(Image[] images) {
+        int width = (int) images[0].getWidth(), height = (int) images[0].getHeight();
+        WritableImage atlas = new WritableImage(width * images.length, height);
+        for (int count = 0; count < images.length; count ++)
+            atlas.getPixelWriter().setPixels(count * width, 0, width, height, images[count].getPixelReader(), 0, 0);
+        return atlas;
+    }
+}
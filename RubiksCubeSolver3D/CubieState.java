@@ -0,0 +1,571 @@
+package RubiksCubeSolver3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Cubie level model of the Rubik's cube: which corner and edge sits in every slot,
+ * and how it is twisted or flipped there.
+ * Slots follow the order of CubeState.cornerPieces and CubeState.edgePieces; only the 18 face turns are defined on it.
+ */
+
+public class CubieState {
+
+    static final int CORNERS = 8;
+    static final int EDGES = 12;
+    static final String[] FACE_MOVES = {"L", "L'", "L2", "R", "R'", "R2", "U", "U'", "U2", "D", "D'", "D2", "F", "F'", "F2", "B", "B'", "B2"};
+    static final int MOVE_COUNT = FACE_MOVES.length;
+
+    static final int TWISTS = 2187;
+    static final int FLIPS = 2048;
+    static final int CORNER_PERMUTATIONS = 40320;
+    static final int SLICES = 495;
+    static final int SLICE_PERMUTATIONS = 24;
+    static final int UD_EDGE_PERMUTATIONS = 40320;
+    static final int FIRST_SLICE_EDGE = 4;
+    static final int SLICE_EDGES = 4;
+    static final int EDGE_SET_SIZE = 6;
+    static final int EDGE_SET_POSITIONS = 665280;
+    static final int EDGE_SET_ORIENTATIONS = 1 << EDGE_SET_SIZE;
+
+    private static final int[][] faceNormals = {
+            {0, 0, 1},
+            {0, 1, 0},
+            {0, 0, -1},
+            {0, -1, 0},
+            {-1, 0, 0},
+            {1, 0, 0}
+    };
+
+    static final int[][] cornerFacelets = setupCornerFacelets();
+    static final int[][] edgeFacelets = setupEdgeFacelets();
+    static final CubieState[] moveCubes = setupMoveCubes();
+    private static final int[][] centerSchemes = setupCenterSchemes();
+
+    byte[] cornerPermutation = new byte[CORNERS];
+    byte[] cornerOrientation = new byte[CORNERS];
+    byte[] edgePermutation = new byte[EDGES];
+    byte[] edgeOrientation = new byte[EDGES];
+    private CubieState buffer;
+
+    public CubieState() {
+        for (byte count = 0; count < CORNERS; count ++)
+            cornerPermutation[count] = count;
+        for (byte count = 0; count < EDGES; count ++)
+            edgePermutation[count] = count;
+    }
+
+    public CubieState(CubieState state) {
+        System.arraycopy(state.cornerPermutation, 0, cornerPermutation, 0, CORNERS);
+        System.arraycopy(state.cornerOrientation, 0, cornerOrientation, 0, CORNERS);
+        System.arraycopy(state.edgePermutation, 0, edgePermutation, 0, EDGES);
+        System.arraycopy(state.edgeOrientation, 0, edgeOrientation, 0, EDGES);
+    }
+
+    /**
+     * The three facelets of every corner slot, starting from the U or D facelet and going clockwise seen from outside.
+     */
+    private static int[][] setupCornerFacelets() {
+        int[][] cornerFacelets = new int[CORNERS][3];
+        for (int count = 0; count < CORNERS; count ++) {
+            int[] faces = slotFaces(CubeState.cornerPieces[count]);
+            int first = faces[0] == 1 || faces[0] == 3 ? 0 : faces[1] == 1 || faces[1] == 3 ? 1 : 2;
+            int second = (first + 1) % 3, third = (first + 2) % 3;
+            if (determinant(faceNormals[faces[first]], faceNormals[faces[second]], faceNormals[faces[third]]) > 0) {
+                second = (first + 2) % 3;
+                third = (first + 1) % 3;
+            }
+            int[] piece = CubeState.cornerPieces[count];
+            cornerFacelets[count][0] = CubeState.getFaceletIndex(piece[0], piece[1], piece[2], faces[first]);
+            cornerFacelets[count][1] = CubeState.getFaceletIndex(piece[0], piece[1], piece[2], faces[second]);
+            cornerFacelets[count][2] = CubeState.getFaceletIndex(piece[0], piece[1], piece[2], faces[third]);
+        }
+        return cornerFacelets;
+    }
+
+    /**
+     * The two facelets of every edge slot, starting from the U or D facelet, or from the F or B one for the middle layer.
+     */
+    private static int[][] setupEdgeFacelets() {
+        int[][] edgeFacelets = new int[EDGES][2];
+        for (int count = 0; count < EDGES; count ++) {
+            int[] faces = slotFaces(CubeState.edgePieces[count]);
+            boolean swap = faces[1] == 1 || faces[1] == 3 || ((faces[1] == 0 || faces[1] == 2) && faces[0] != 1 && faces[0] != 3);
+            int[] piece = CubeState.edgePieces[count];
+            edgeFacelets[count][0] = CubeState.getFaceletIndex(piece[0], piece[1], piece[2], faces[swap ? 1 : 0]);
+            edgeFacelets[count][1] = CubeState.getFaceletIndex(piece[0], piece[1], piece[2], faces[swap ? 0 : 1]);
+        }
+        return edgeFacelets;
+    }
+
+    private static int[] slotFaces(int[] piece) {
+        int[] faces = new int[3];
+        int count = 0;
+        for (int face = 0; face < CubeState.FACES; face ++)
+            if (CubeState.getFaceletIndex(piece[0], piece[1], piece[2], face) >= 0)
+                faces[count ++] = face;
+        return Arrays.copyOf(faces, count);
+    }
+
+    private static int determinant(int[] a, int[] b, int[] c) {
+        return a[0] * (b[1] * c[2] - b[2] * c[1]) - a[1] * (b[0] * c[2] - b[2] * c[0]) + a[2] * (b[0] * c[1] - b[1] * c[0]);
+    }
+
+    private static CubieState[] setupMoveCubes() {
+        CubieState[] moveCubes = new CubieState[MOVE_COUNT];
+        for (int move = 0; move < MOVE_COUNT; move ++) {
+            CubeState state = new CubeState();
+            state.applyMove(FACE_MOVES[move]);
+            moveCubes[move] = fromState(state);
+        }
+        return moveCubes;
+    }
+
+    /**
+     * Reads the pieces off a sticker state. Colors are matched to faces through the centers,
+     * so a cube turned by slice moves or rotations is read in its own frame.
+     */
+    public static CubieState fromState(CubeState state) {
+        int[] faceOfColor = {-1, -1, -1, -1, -1, -1, -1};
+        for (int face = 0; face < CubeState.FACES; face ++)
+            faceOfColor[state.getFacelet(face * 9 + 4)] = face;
+
+        CubieState cubieState = new CubieState();
+        int[] faces = new int[3];
+        for (int slot = 0; slot < CORNERS; slot ++) {
+            int orientation = -1;
+            for (int count = 0; count < 3; count ++) {
+                faces[count] = faceOfColor[state.getFacelet(cornerFacelets[slot][count])];
+                if (faces[count] == 1 || faces[count] == 3)
+                    orientation = count;
+            }
+            int piece = -1;
+            if (orientation >= 0)
+                for (int count = 0; count < CORNERS; count ++)
+                    if (faces[orientation] == cornerFacelets[count][0] / 9 && faces[(orientation + 1) % 3] == cornerFacelets[count][1] / 9
+                            && faces[(orientation + 2) % 3] == cornerFacelets[count][2] / 9)
+                        piece = count;
+            if (piece < 0)
+                throw new IllegalArgumentException("A corner has colors that no corner of the cube has.");
+            cubieState.cornerPermutation[slot] = (byte) piece;
+            cubieState.cornerOrientation[slot] = (byte) orientation;
+        }
+
+        for (int slot = 0; slot < EDGES; slot ++) {
+            faces[0] = faceOfColor[state.getFacelet(edgeFacelets[slot][0])];
+            faces[1] = faceOfColor[state.getFacelet(edgeFacelets[slot][1])];
+            int piece = -1;
+            for (int count = 0; count < EDGES; count ++)
+                if (faces[0] == edgeFacelets[count][0] / 9 && faces[1] == edgeFacelets[count][1] / 9) {
+                    piece = count;
+                    cubieState.edgeOrientation[slot] = 0;
+                }
+                else if (faces[1] == edgeFacelets[count][0] / 9 && faces[0] == edgeFacelets[count][1] / 9) {
+                    piece = count;
+                    cubieState.edgeOrientation[slot] = 1;
+                }
+            if (piece < 0)
+                throw new IllegalArgumentException("An edge has colors that no edge of the cube has.");
+            cubieState.edgePermutation[slot] = (byte) piece;
+        }
+        return cubieState;
+    }
+
+    /**
+     * Sticker state of these pieces, with the centers in their solved position.
+     */
+    public CubeState toState() {
+        CubeState state = new CubeState();
+        for (int slot = 0; slot < CORNERS; slot ++)
+            for (int count = 0; count < 3; count ++)
+                state.setFacelet(cornerFacelets[slot][(count + cornerOrientation[slot]) % 3], cornerFacelets[cornerPermutation[slot]][count] / 9);
+        for (int slot = 0; slot < EDGES; slot ++)
+            for (int count = 0; count < 2; count ++)
+                state.setFacelet(edgeFacelets[slot][(count + edgeOrientation[slot]) % 2], edgeFacelets[edgePermutation[slot]][count] / 9);
+        return state;
+    }
+
+    /**
+     * Result of applying the moves of b to the state a: slot i receives the piece that a held in slot b.cornerPermutation[i].
+     */
+    static void multiply(CubieState a, CubieState b, CubieState result) {
+        for (int slot = 0; slot < CORNERS; slot ++) {
+            result.cornerPermutation[slot] = a.cornerPermutation[b.cornerPermutation[slot]];
+            result.cornerOrientation[slot] = (byte) ((a.cornerOrientation[b.cornerPermutation[slot]] + b.cornerOrientation[slot]) % 3);
+        }
+        for (int slot = 0; slot < EDGES; slot ++) {
+            result.edgePermutation[slot] = a.edgePermutation[b.edgePermutation[slot]];
+            result.edgeOrientation[slot] = (byte) ((a.edgeOrientation[b.edgePermutation[slot]] + b.edgeOrientation[slot]) % 2);
+        }
+    }
+
+    public void applyMove(int move) {
+        if (buffer == null)
+            buffer = new CubieState();
+        multiply(this, moveCubes[move], buffer);
+        byte[] swap = cornerPermutation;
+        cornerPermutation = buffer.cornerPermutation;
+        buffer.cornerPermutation = swap;
+        swap = cornerOrientation;
+        cornerOrientation = buffer.cornerOrientation;
+        buffer.cornerOrientation = swap;
+        swap = edgePermutation;
+        edgePermutation = buffer.edgePermutation;
+        buffer.edgePermutation = swap;
+        swap = edgeOrientation;
+        edgeOrientation = buffer.edgeOrientation;
+        buffer.edgeOrientation = swap;
+    }
+
+    /**
+     * A move is skipped after a turn of the same face, and after a turn of the opposite face with a higher index
+     * since opposite faces commute.
+     */
+    static boolean isRedundant(int move, int previous) {
+        int face = move / 3, previousFace = previous / 3;
+        return face == previousFace || face / 2 == previousFace / 2 && face < previousFace;
+    }
+
+    static int getMoveIndex(String move) {
+        for (int count = 0; count < MOVE_COUNT; count ++)
+            if (FACE_MOVES[count].equals(move))
+                return count;
+        throw new IllegalArgumentException("Unknown face move " + move);
+    }
+
+    public int getTwist() {
+        int twist = 0;
+        for (int slot = 0; slot < CORNERS - 1; slot ++)
+            twist = 3 * twist + cornerOrientation[slot];
+        return twist;
+    }
+
+    public void setTwist(int twist) {
+        int twistSum = 0;
+        for (int slot = CORNERS - 2; slot >= 0; slot --) {
+            cornerOrientation[slot] = (byte) (twist % 3);
+            twistSum += cornerOrientation[slot];
+            twist /= 3;
+        }
+        cornerOrientation[CORNERS - 1] = (byte) ((3 - twistSum % 3) % 3);
+    }
+
+    public int getFlip() {
+        int flip = 0;
+        for (int slot = 0; slot < EDGES - 1; slot ++)
+            flip = 2 * flip + edgeOrientation[slot];
+        return flip;
+    }
+
+    public void setFlip(int flip) {
+        int flipSum = 0;
+        for (int slot = EDGES - 2; slot >= 0; slot --) {
+            edgeOrientation[slot] = (byte) (flip % 2);
+            flipSum += edgeOrientation[slot];
+            flip /= 2;
+        }
+        edgeOrientation[EDGES - 1] = (byte) (flipSum % 2);
+    }
+
+    public int getCornerPermutation() {
+        return permutationToIndex(cornerPermutation);
+    }
+
+    public void setCornerPermutation(int index) {
+        indexToPermutation(index, cornerPermutation);
+    }
+
+    public int getEdgePermutation() {
+        return permutationToIndex(edgePermutation);
+    }
+
+    public void setEdgePermutation(int index) {
+        indexToPermutation(index, edgePermutation);
+    }
+
+    private static boolean isSliceEdge(int piece) {
+        return piece >= FIRST_SLICE_EDGE && piece < FIRST_SLICE_EDGE + SLICE_EDGES;
+    }
+
+    /**
+     * Which four slots hold the E slice edges, ranked among the 495 combinations; orientations are not touched.
+     */
+    public int getSlice() {
+        int slice = 0, found = 0;
+        for (int slot = 0; slot < EDGES; slot ++)
+            if (isSliceEdge(edgePermutation[slot])) {
+                found ++;
+                slice += binomial(slot, found);
+            }
+        return slice;
+    }
+
+    public void setSlice(int slice) {
+        boolean[] sliceSlots = new boolean[EDGES];
+        for (int found = SLICE_EDGES; found > 0; found --) {
+            int slot = found - 1;
+            while (binomial(slot + 1, found) <= slice)
+                slot ++;
+            sliceSlots[slot] = true;
+            slice -= binomial(slot, found);
+        }
+        byte slicePiece = FIRST_SLICE_EDGE, otherPiece = 0;
+        for (int slot = 0; slot < EDGES; slot ++) {
+            if (sliceSlots[slot])
+                edgePermutation[slot] = slicePiece ++;
+            else {
+                if (otherPiece == FIRST_SLICE_EDGE)
+                    otherPiece += SLICE_EDGES;
+                edgePermutation[slot] = otherPiece ++;
+            }
+        }
+    }
+
+    /**
+     * Order of the E slice edges inside the E slice, only meaningful once they are all there.
+     */
+    public int getSlicePermutation() {
+        int index = 0;
+        for (int count = 0; count < SLICE_EDGES; count ++) {
+            int smaller = 0;
+            for (int count2 = count + 1; count2 < SLICE_EDGES; count2 ++)
+                if (edgePermutation[FIRST_SLICE_EDGE + count2] < edgePermutation[FIRST_SLICE_EDGE + count])
+                    smaller ++;
+            index = index * (SLICE_EDGES - count) + smaller;
+        }
+        return index;
+    }
+
+    public void setSlicePermutation(int index) {
+        byte[] permutation = new byte[SLICE_EDGES];
+        indexToPermutation(index, permutation);
+        for (int count = 0; count < SLICE_EDGES; count ++)
+            edgePermutation[FIRST_SLICE_EDGE + count] = (byte) (FIRST_SLICE_EDGE + permutation[count]);
+    }
+
+    /**
+     * Order of the eight U and D layer edges, only meaningful once the E slice edges are in the E slice.
+     */
+    public int getUDEdgePermutation() {
+        int index = 0;
+        for (int count = 0; count < EDGES - SLICE_EDGES; count ++) {
+            int piece = edgePermutation[udSlot(count)], smaller = 0;
+            for (int count2 = count + 1; count2 < EDGES - SLICE_EDGES; count2 ++)
+                if (edgePermutation[udSlot(count2)] < piece)
+                    smaller ++;
+            index = index * (EDGES - SLICE_EDGES - count) + smaller;
+        }
+        return index;
+    }
+
+    public void setUDEdgePermutation(int index) {
+        byte[] permutation = new byte[EDGES - SLICE_EDGES];
+        indexToPermutation(index, permutation);
+        for (int count = 0; count < EDGES - SLICE_EDGES; count ++)
+            edgePermutation[udSlot(count)] = (byte) udSlot(permutation[count]);
+        for (int count = 0; count < SLICE_EDGES; count ++)
+            edgePermutation[FIRST_SLICE_EDGE + count] = (byte) (FIRST_SLICE_EDGE + count);
+    }
+
+    private static int udSlot(int count) {
+        return count < FIRST_SLICE_EDGE ? count : count + SLICE_EDGES;
+    }
+
+    /**
+     * Slots of the six edges firstEdge..firstEdge + 5, ranked among the 665280 ways to place them.
+     */
+    public int getEdgeSetPosition(int firstEdge) {
+        int[] slots = new int[EDGE_SET_SIZE];
+        for (int slot = 0; slot < EDGES; slot ++)
+            if (edgePermutation[slot] >= firstEdge && edgePermutation[slot] < firstEdge + EDGE_SET_SIZE)
+                slots[edgePermutation[slot] - firstEdge] = slot;
+        return slotsToIndex(slots);
+    }
+
+    /**
+     * Orientations of the six edges firstEdge..firstEdge + 5, one bit per edge.
+     */
+    public int getEdgeSetOrientation(int firstEdge) {
+        int orientation = 0;
+        for (int slot = 0; slot < EDGES; slot ++)
+            if (edgePermutation[slot] >= firstEdge && edgePermutation[slot] < firstEdge + EDGE_SET_SIZE)
+                orientation |= edgeOrientation[slot] << (edgePermutation[slot] - firstEdge);
+        return orientation;
+    }
+
+    static int slotsToIndex(int[] slots) {
+        int index = 0, used = 0;
+        for (int count = 0; count < slots.length; count ++) {
+            index = index * (EDGES - count) + Integer.bitCount(~used & ((1 << slots[count]) - 1));
+            used |= 1 << slots[count];
+        }
+        return index;
+    }
+
+    static void indexToSlots(int index, int[] slots) {
+        for (int count = slots.length - 1; count >= 0; count --) {
+            slots[count] = index % (EDGES - count);
+            index /= EDGES - count;
+        }
+        int used = 0;
+        for (int count = 0; count < slots.length; count ++) {
+            int slot = 0;
+            for (int free = slots[count]; free > 0 || (used & 1 << slot) != 0; slot ++)
+                if ((used & 1 << slot) == 0)
+                    free --;
+            slots[count] = slot;
+            used |= 1 << slot;
+        }
+    }
+
+    private static int binomial(int n, int k) {
+        if (k > n)
+            return 0;
+        int result = 1;
+        for (int count = 1; count <= k; count ++)
+            result = result * (n - k + count) / count;
+        return result;
+    }
+
+    /**
+     * True when the pieces are all different, the twist and flip sums are neutral and the permutation parities match,
+     * that is when the state can be reached from the solved cube.
+     */
+    public boolean isSolvable() {
+        return unsolvableReason() == null;
+    }
+
+    /**
+     * Explains which of the conditions of isSolvable is broken, or returns null when the state is solvable.
+     */
+    public String unsolvableReason() {
+        int seenCorners = 0, seenEdges = 0, twistSum = 0, flipSum = 0;
+        for (int slot = 0; slot < CORNERS; slot ++) {
+            seenCorners |= 1 << cornerPermutation[slot];
+            twistSum += cornerOrientation[slot];
+        }
+        for (int slot = 0; slot < EDGES; slot ++) {
+            seenEdges |= 1 << edgePermutation[slot];
+            flipSum += edgeOrientation[slot];
+        }
+        if (seenCorners != (1 << CORNERS) - 1)
+            return "Two corners have the same colors.";
+        if (seenEdges != (1 << EDGES) - 1)
+            return "Two edges have the same colors.";
+        if (twistSum % 3 != 0)
+            return "A corner is twisted in its place.";
+        if (flipSum % 2 != 0)
+            return "An edge is flipped in its place.";
+        if (getCornerParity() != getEdgeParity())
+            return "Two pieces are swapped.";
+        return null;
+    }
+
+    /**
+     * The center colors, face by face, of a solved cube seen from each of its 24 orientations.
+     */
+    private static int[][] setupCenterSchemes() {
+        ArrayList<CubeState> orientations = new ArrayList<>();
+        orientations.add(new CubeState());
+        for (int count = 0; count < orientations.size(); count ++)
+            for (String rotation : new String[]{"x", "y"}) {
+                CubeState orientation = new CubeState(orientations.get(count));
+                orientation.applyMove(rotation);
+                if (!orientations.contains(orientation))
+                    orientations.add(orientation);
+            }
+        int[][] schemes = new int[orientations.size()][CubeState.FACES];
+        for (int count = 0; count < schemes.length; count ++)
+            for (int face = 0; face < CubeState.FACES; face ++)
+                schemes[count][face] = orientations.get(count).getFacelet(face * 9 + 4);
+        return schemes;
+    }
+
+    private static boolean isCenterScheme(CubeState state) {
+        int[] centers = new int[CubeState.FACES];
+        for (int face = 0; face < CubeState.FACES; face ++)
+            centers[face] = state.getFacelet(face * 9 + 4);
+        for (int[] scheme : centerSchemes)
+            if (Arrays.equals(scheme, centers))
+                return true;
+        return false;
+    }
+
+    /**
+     * Checks a painted sticker state without solving it: the centers, then the colors of every piece,
+     * then the invariants of isSolvable. Returns what is wrong, or null when the cube can be solved.
+     */
+    public static String unsolvableReason(CubeState state) {
+        int centers = 0;
+        for (int face = 0; face < CubeState.FACES; face ++)
+            centers |= 1 << state.getFacelet(face * 9 + 4);
+        if (centers != (1 << CubeState.FACES) - 1)
+            return "The centers must all have different colors.";
+        if (!isCenterScheme(state))
+            return "The centers are not placed as on a real cube.";
+        try {
+            return fromState(state).unsolvableReason();
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    public int getCornerParity() {
+        return parity(cornerPermutation);
+    }
+
+    public int getEdgeParity() {
+        return parity(edgePermutation);
+    }
+
+    /**
+     * Lexicographic rank of a permutation (Lehmer code).
+     */
+    static int permutationToIndex(byte[] permutation) {
+        int index = 0;
+        for (int count = 0; count < permutation.length; count ++) {
+            int smaller = 0;
+            for (int count2 = count + 1; count2 < permutation.length; count2 ++)
+                if (permutation[count2] < permutation[count])
+                    smaller ++;
+            index = index * (permutation.length - count) + smaller;
+        }
+        return index;
+    }
+
+    static void indexToPermutation(int index, byte[] permutation) {
+        int length = permutation.length;
+        for (int count = length - 1; count >= 0; count --) {
+            permutation[count] = (byte) (index % (length - count));
+            index /= length - count;
+        }
+        for (int count = length - 2; count >= 0; count --)
+            for (int count2 = count + 1; count2 < length; count2 ++)
+                if (permutation[count2] >= permutation[count])
+                    permutation[count2] ++;
+    }
+
+    private static int parity(byte[] permutation) {
+        int inversions = 0;
+        for (int count = 0; count < permutation.length; count ++)
+            for (int count2 = count + 1; count2 < permutation.length; count2 ++)
+                if (permutation[count2] < permutation[count])
+                    inversions ++;
+        return inversions % 2;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof CubieState))
+            return false;
+        CubieState state = (CubieState) object;
+        return Arrays.equals(cornerPermutation, state.cornerPermutation) && Arrays.equals(cornerOrientation, state.cornerOrientation)
+                && Arrays.equals(edgePermutation, state.edgePermutation) && Arrays.equals(edgeOrientation, state.edgeOrientation);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * Arrays.hashCode(cornerPermutation) + Arrays.hashCode(cornerOrientation))
+                + Arrays.hashCode(edgePermutation)) + Arrays.hashCode(edgeOrientation);
+    }
+}
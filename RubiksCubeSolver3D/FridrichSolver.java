@@ -0,0 +1,301 @@
+package RubiksCubeSolver3D;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Fridrich (CFOP) solver: white cross, intuitive F2L, then one-look OLL and PLL.
+ * Every solve works on its own copy of the cube, so several of them can run at the same time.
+ * solveShortest runs it for all 24 orientations of the color scheme at once and keeps the shortest solution.
+ */
+
+public class FridrichSolver {
+
+    private static final int FACES = CubeState.FACES;
+    private static final int[][] colorRelabelings = setupColorRelabelings();
+
+    private final CubeState fakeCube;
+    private final ArrayList<String> solverMoves = new ArrayList<>();
+    private int countFace;
+    private int stopCount;
+
+    private FridrichSolver(CubeState state) {
+        fakeCube = new CubeState(state);
+    }
+
+    /**
+     * The color permutations that turn a solved cube seen from any of its 24 orientations into the standard one:
+     * relabeling a cube with any of them gives another valid cube, whose white cross is a different cross of the original.
+     */
+    private static int[][] setupColorRelabelings() {
+        ArrayList<int[]> relabelings = new ArrayList<>();
+        ArrayList<CubeState> orientations = new ArrayList<>();
+        orientations.add(new CubeState());
+        for (int count = 0; count < orientations.size(); count ++)
+            for (String rotation : new String[]{"x", "y"}) {
+                CubeState orientation = new CubeState(orientations.get(count));
+                orientation.applyMove(rotation);
+                if (!orientations.contains(orientation))
+                    orientations.add(orientation);
+            }
+        for (CubeState orientation : orientations) {
+            int[] relabeling = new int[FACES];
+            for (int face = 0; face < FACES; face ++)
+                relabeling[orientation.get(CubeState.centralPieces[face][0], CubeState.centralPieces[face][1], CubeState.centralPieces[face][2], face)] = face;
+            relabelings.add(relabeling);
+        }
+        return relabelings.toArray(new int[0][]);
+    }
+
+    private static CubeState relabel(CubeState state, int[] relabeling) {
+        CubeState relabeled = new CubeState(state);
+        for (int facelet = 0; facelet < CubeState.FACELETS; facelet ++)
+            relabeled.setFacelet(facelet, relabeling[state.getFacelet(facelet)]);
+        return relabeled;
+    }
+
+    /**
+     * Solves the cube with the white cross using layer turns only, or returns null when the cube cannot be solved.
+     */
+    public static String[] solve(CubeState state) {
+        FridrichSolver solver = new FridrichSolver(state);
+        try {
+            solver.whiteCross();
+            solver.intuitiveF2L();
+            solver.oneLookOLL();
+            solver.oneLookPLL();
+            solver.addToSolverMoves("x");
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (!solver.fakeCube.equals(new CubeState()))
+            return null;
+        return MoveOptimizer.withoutRotations(solver.solverMoves.toArray(new String[0]));
+    }
+
+    public static String[] solveShortest(CubeState state) {
+        return solveShortest(state, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves every color relabeling of the cube on the pool, that is from all 6 cross colors and 4 orientations around them,
+     * and returns the shortest solution, or null when the cube cannot be solved.
+     */
+    public static String[] solveShortest(CubeState state, ForkJoinPool pool) {
+        List<Callable<String[]>> solves = new ArrayList<>();
+        for (int[] relabeling : colorRelabelings)
+            solves.add(() -> solve(relabel(state, relabeling)));
+        String[] shortest = null;
+        for (Future<String[]> solve : pool.invokeAll(solves)) {
+            String[] moves;
+            try {
+                moves = solve.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            if (moves != null && (shortest == null || moves.length < shortest.length))
+                shortest = moves;
+        }
+        return shortest;
+    }
+
+    private void addToSolverMoves(String... moves) {
+        for (String move : moves) {
+            solverMoves.add(move);
+            fakeCube.applyMove(move);
+        }
+    }
+
+    private void whiteCross() {
+        int initWhiteFace = -1;
+        for (countFace = 0; countFace < FACES; countFace ++) {
+            int color = fakeCube.get(CubeState.centralPieces[countFace][0], CubeState.centralPieces[countFace][1], CubeState.centralPieces[countFace][2], countFace);
+            if (color == 0)
+                initWhiteFace = countFace;
+        }
+        switch (initWhiteFace) {
+            case 0:
+                addToSolverMoves("x'");
+                break;
+            case 1:
+                addToSolverMoves("x'", "x'");
+                break;
+            case 2:
+                addToSolverMoves("x");
+                break;
+            case 4:
+                addToSolverMoves("z'");
+                break;
+            case 5:
+                addToSolverMoves("z");
+                break;
+        }
+
+        for (int count = 0; count < 4; count ++) {
+            int edgePiecePos = -1;
+            stopCount = 0;
+            do {
+                stopCount ++;
+                int[] pieceXYZFF = fakeCube.findPiece(0, CubeState.switchFaces[2][count]);
+                for (int count2 = 0; count2 < CubeState.edgePieces.length; count2 ++)
+                    if (pieceXYZFF[0] == CubeState.edgePieces[count2][0] && pieceXYZFF[1] == CubeState.edgePieces[count2][1] && pieceXYZFF[2] == CubeState.edgePieces[count2][2]) {
+                        edgePiecePos = count2;
+                        break;
+                    }
+                switch (edgePiecePos) {
+                    case 0:
+                        if (pieceXYZFF[3] == 0)
+                            addToSolverMoves("F", "E", "F");
+                        break;
+                    case 1:
+                        addToSolverMoves("F", "F");
+                        break;
+                    case 2:
+                        addToSolverMoves("U", "U");
+                        break;
+                    case 3:
+                        addToSolverMoves("B", "B");
+                        break;
+                    case 4:
+                        addToSolverMoves("F'");
+                        break;
+                    case 5:
+                        addToSolverMoves("F");
+                        break;
+                    case 6:
+                        addToSolverMoves("E'");
+                        break;
+                    case 7:
+                        addToSolverMoves("E");
+                        break;
+                    case 8:
+                        addToSolverMoves("L'", "F'");
+                        break;
+                    case 9:
+                        addToSolverMoves("U'", "F", "F");
+                        break;
+                    case 10:
+                        addToSolverMoves("U", "F", "F");
+                        break;
+                    case 11:
+                        addToSolverMoves("R", "F");
+                        break;
+                }
+            } while (edgePiecePos != 0 && stopCount < 10);
+            addToSolverMoves("y");
+        }
+
+        for (int count = 0; count < 4; count ++) {
+            int color = fakeCube.get(1, 0, 2, 0);
+            int color2 = fakeCube.get(1, 1, 2, 0);
+            if (color == color2) break;
+            else addToSolverMoves("E");
+        }
+    }
+
+    private void intuitiveF2L() {
+        for (int count = 0; count < 4; count ++) {
+            int[] pieceXYZFFF;
+            int cornerPiecePos = -1, finishCount = 0;
+            stopCount = 0;
+            do {
+                stopCount ++;
+                pieceXYZFFF = fakeCube.findPiece(0, CubeState.switchFaces[2][count], CubeState.switchFaces[2][count + 1]);
+                for (int count2 = 0; count2 < CubeState.cornerPieces.length; count2 ++)
+                    if (pieceXYZFFF[0] == CubeState.cornerPieces[count2][0] && pieceXYZFFF[1] == CubeState.cornerPieces[count2][1] && pieceXYZFFF[2] == CubeState.cornerPieces[count2][2]) {
+                        cornerPiecePos = count2;
+                        break;
+                    }
+                switch (cornerPiecePos) {
+                    case 0:
+                        addToSolverMoves("L'", "U'", "L");
+                        break;
+                    case 1:
+                        addToSolverMoves("U'");
+                        break;
+                    case 2:
+                        if (pieceXYZFFF[3] == 0 || pieceXYZFFF[3] == 1)
+                            addToSolverMoves("R", "U", "U", "R'", "U'");
+                        finishCount ++;
+                        break;
+                    case 3:
+                        addToSolverMoves("R", "U", "R'");
+                        break;
+                    case 4:
+                        addToSolverMoves("L", "U", "L'");
+                        break;
+                    case 5:
+                    case 6:
+                        addToSolverMoves("U");
+                        break;
+                    case 7:
+                        addToSolverMoves("R'", "U", "R");
+                        break;
+                }
+            } while (finishCount < 3 && stopCount < 10);
+            int edgePiecePos = -1;
+            stopCount = 0;
+            boolean finishFlag = false;
+            do {
+                stopCount ++;
+                int[] pieceXYZFF = fakeCube.findPiece(CubeState.switchFaces[2][count], CubeState.switchFaces[2][count + 1]);
+                for (int count2 = 0; count2 < CubeState.edgePieces.length; count2 ++)
+                    if (pieceXYZFF[0] == CubeState.edgePieces[count2][0] && pieceXYZFF[1] == CubeState.edgePieces[count2][1] && pieceXYZFF[2] == CubeState.edgePieces[count2][2]) {
+                        edgePiecePos = count2;
+                        break;
+                    }
+                switch (edgePiecePos) {
+                    case 1:
+                        if (pieceXYZFF[3] == pieceXYZFFF[4])
+                            addToSolverMoves("U'", "F'", "U", "F");
+                        else
+                            addToSolverMoves("U", "F'", "U", "U", "F", "U'", "R", "U", "R'");
+                        finishFlag = true;
+                        break;
+                    case 2:
+                        if (pieceXYZFF[4] == pieceXYZFFF[5])
+                            addToSolverMoves("U", "F'", "U", "U", "F", "U", "U", "F'", "U", "F");
+                        else
+                            addToSolverMoves("R", "U", "R'");
+                        finishFlag = true;
+                        break;
+                    case 4:
+                        addToSolverMoves("U'", "L'", "U", "L");
+                        break;
+                    case 5:
+                        addToSolverMoves("U", "R", "U", "R'", "U", "U");
+                        break;
+                    case 6:
+                        addToSolverMoves("B", "U", "B'", "U'");
+                        break;
+                    case 7:
+                        addToSolverMoves("B'", "U", "B", "U'");
+                        break;
+                    case 9:
+                        addToSolverMoves("U", "U", "R", "U'", "R'", "U'");
+                        break;
+                    case 10:
+                        addToSolverMoves("U'", "R", "U'", "R'", "U");
+                        break;
+                }
+            } while (!finishFlag && stopCount < 10);
+            addToSolverMoves("y");
+        }
+    }
+
+    private void oneLookOLL() {
+        String[] moves = LastLayerTable.orientationMoves(fakeCube);
+        if (moves != null)
+            addToSolverMoves(moves);
+    }
+
+    private void oneLookPLL() {
+        String[] moves = LastLayerTable.permutationMoves(fakeCube);
+        if (moves != null)
+            addToSolverMoves(moves);
+    }
+}
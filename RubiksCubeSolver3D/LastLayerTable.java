@@ -0,0 +1,218 @@
+package RubiksCubeSolver3D;
+
+import java.util.HashMap;
+
+/**
+ * One-look last layer tables: the 57 OLL and 21 PLL algorithms with every U turn before (and for PLL after) them,
+ * keyed by a hash of the last layer stickers. Entries are found by running each sequence backwards from a solved cube.
+ * OLL keys have one bit per U layer sticker showing the U color; PLL keys hold, for every side sticker of the U layer,
+ * how many quarter turns it is away from the center of its color, so they do not depend on the colors themselves.
+ */
+
+final class LastLayerTable {
+
+    private static final String[] OLL_ALGORITHMS = {
+            "R U2 R2 F R F' U2 R' F R F'",
+            "F R U R' U' F' f R U R' U' f'",
+            "f R U R' U' f' U' F R U R' U' F'",
+            "f R U R' U' f' U F R U R' U' F'",
+            "r' U2 R U R' U r",
+            "r U2 R' U' R U' r'",
+            "r U R' U R U2 r'",
+            "l' U' L U' L' U2 l",
+            "R U R' U' R' F R2 U R' U' F'",
+            "R U R' U R' F R F' R U2 R'",
+            "r U R' U R' F R F' R U2 r'",
+            "M' R' U' R U' R' U2 R U' R r'",
+            "F U R U' R2 F' R U R U' R'",
+            "R' F R U R' F' R F U' F'",
+            "l' U' l L' U' L U l' U l",
+            "r U r' R U R' U' r U' r'",
+            "R U R' U R' F R F' U2 R' F R F'",
+            "r U R' U R U2 r2 U' R U' R' U2 r",
+            "r' R U R U R' U' M' R' F R F'",
+            "r U R' U' M2 U R U' R' U' M'",
+            "R U2 R' U' R U R' U' R U' R'",
+            "R U2 R2 U' R2 U' R2 U2 R",
+            "R2 D' R U2 R' D R U2 R",
+            "r U R' U' r' F R F'",
+            "F' r U R' U' r' F R",
+            "R U2 R' U' R U' R'",
+            "R U R' U R U2 R'",
+            "r U R' U' M U R U' R'",
+            "R U R' U' R U' R' F' U' F R U R'",
+            "F R' F R2 U' R' U' R U R' F2",
+            "R' U' F U R U' R' F' R",
+            "L U F' U' L' U L F L'",
+            "R U R' U' R' F R F'",
+            "R U R2 U' R' F R U R U' F'",
+            "R U2 R2 F R F' R U2 R'",
+            "L' U' L U' L' U L U L F' L' F",
+            "F R' F' R U R U' R'",
+            "R U R' U R U' R' U' R' F R F'",
+            "L F' L' U' L U F U' L'",
+            "R' F R U R' U' F' U R",
+            "R U R' U R U2 R' F R U R' U' F'",
+            "R' U' R U' R' U2 R F R U R' U' F'",
+            "F' U' L' U L F",
+            "F U R U' R' F'",
+            "F R U R' U' F'",
+            "R' U' R' F R F' U R",
+            "R' U' R' F R F' R' F R F' U R",
+            "F R U R' U' R U R' U' F'",
+            "r U' r2 U r2 U r2 U' r",
+            "r' U r2 U' r2 U' r2 U r'",
+            "F U R U' R' U R U' R' F'",
+            "R U R' U R U' B U' B' R'",
+            "l' U2 L U L' U' L U L' U l",
+            "r U2 R' U' R U R' U' R U' r'",
+            "R' F R U R U' R2 F' R2 U' R' U R U R'",
+            "r' U' r U' R' U R U' R' U R r' U r",
+            "R U R' U' M' U R U' r'"
+    };
+
+    private static final String[] PLL_ALGORITHMS = {
+            "x R' U R' D2 R U' R' D2 R2 x'",
+            "x R2 D2 R U R' D2 R U' R x'",
+            "x' R U' R' D R U R' D' R U R' D R U' R' D' x",
+            "R' U' F' R U R' U' R' F R2 U' R' U' R U R' U R",
+            "R2 U R' U R' U' R U' R2 U' D R' U R D'",
+            "R' U' R U D' R2 U R' U R U' R U' R2 D",
+            "R2 U' R U' R U R' U R2 U D' R U' R' D",
+            "R U R' U' D R2 U' R U' R' U R' U R2 D'",
+            "M2 U M2 U2 M2 U M2",
+            "R' U L' U2 R U' R' U2 R L U'",
+            "R U R' F' R U R' U' R' F R2 U' R' U'",
+            "R U R' U R U R' F' R U R' U' R' F R2 U' R' U2 R U' R'",
+            "R' U R U' R' F' U' F R U R' F R' F' R U' R",
+            "R U' R' U' R U R D R' U' R D' R' U2 R' U'",
+            "R2 F R U R U' R' F' R U2 R' U2 R",
+            "R U R' U' R' F R2 U' R' U' R U R' F'",
+            "M2 U M U2 M' U M2",
+            "M2 U' M U2 M' U' M2",
+            "R' U R' U' R D' R' D R' U D' R2 U' R2 D R2",
+            "F R U' R' U' R U R' F' R U R' U' R' F R F'",
+            "M' U M2 U M2 U M' U2 M2"
+    };
+
+    private static final int[] sideFaces = {0, 5, 2, 4};
+    private static final int[] orientationFacelets = setupOrientationFacelets();
+    private static final HashMap<Integer, String[]> orientationCases = new HashMap<>();
+    private static final HashMap<Integer, String[]> permutationCases = new HashMap<>();
+
+    static {
+        for (int turns = 0; turns < 4; turns ++) {
+            addCase(orientationCases, true, turns, new String[0], 0);
+            for (String algorithm : OLL_ALGORITHMS)
+                addCase(orientationCases, true, turns, expand(algorithm), 0);
+            for (int afterTurns = 0; afterTurns < 4; afterTurns ++) {
+                addCase(permutationCases, false, turns, new String[0], afterTurns);
+                for (String algorithm : PLL_ALGORITHMS)
+                    addCase(permutationCases, false, turns, expand(algorithm), afterTurns);
+            }
+        }
+    }
+
+    private LastLayerTable() {}
+
+    private static int[] setupOrientationFacelets() {
+        int[] facelets = new int[20];
+        int count = 0;
+        for (int facelet = 0; facelet < 9; facelet ++)
+            if (facelet != 4)
+                facelets[count ++] = 9 + facelet;
+        for (int face : sideFaces)
+            for (int column = 0; column < 3; column ++)
+                facelets[count ++] = face * 9 + column;
+        return facelets;
+    }
+
+    /**
+     * Wide turns become a face turn plus the slice next to it and half turns two quarter turns,
+     * which keeps the sequences in the notation of the Fridrich solver.
+     */
+    private static String[] expand(String algorithm) {
+        StringBuilder moves = new StringBuilder();
+        for (String move : algorithm.split(" ")) {
+            String suffix = move.length() > 1 && move.charAt(1) == '\'' ? "'" : "";
+            String inverseSuffix = suffix.isEmpty() ? "'" : "";
+            String quarterMoves;
+            switch (move.charAt(0)) {
+                case 'r':
+                    quarterMoves = "R" + suffix + " M" + inverseSuffix;
+                    break;
+                case 'l':
+                    quarterMoves = "L" + suffix + " M" + suffix;
+                    break;
+                case 'f':
+                    quarterMoves = "F" + suffix + " S" + suffix;
+                    break;
+                default:
+                    quarterMoves = move.charAt(0) + suffix;
+                    break;
+            }
+            moves.append(' ').append(quarterMoves);
+            if (move.endsWith("2"))
+                moves.append(' ').append(quarterMoves);
+        }
+        return moves.substring(1).split(" ");
+    }
+
+    private static String inverse(String move) {
+        return move.endsWith("'") ? move.substring(0, 1) : move + "'";
+    }
+
+    /**
+     * Stores U^turns, the algorithm and U^afterTurns under the key of the last layer they solve,
+     * unless a shorter sequence already solves it.
+     */
+    private static void addCase(HashMap<Integer, String[]> cases, boolean orientation, int turns, String[] algorithm, int afterTurns) {
+        String[] moves = new String[turns + algorithm.length + afterTurns];
+        for (int count = 0; count < moves.length; count ++)
+            moves[count] = count < turns || count >= turns + algorithm.length ? "U" : algorithm[count - turns];
+        CubeState state = new CubeState();
+        for (int count = moves.length - 1; count >= 0; count --)
+            state.applyMove(inverse(moves[count]));
+        Integer key = orientation ? orientationKey(state) : permutationKey(state);
+        if (key != null && (!cases.containsKey(key) || cases.get(key).length > moves.length))
+            cases.put(key, moves);
+    }
+
+    private static int orientationKey(CubeState state) {
+        int key = 0, upColor = state.getFacelet(13);
+        for (int count = 0; count < orientationFacelets.length; count ++)
+            if (state.getFacelet(orientationFacelets[count]) == upColor)
+                key |= 1 << count;
+        return key;
+    }
+
+    private static Integer permutationKey(CubeState state) {
+        int key = 0;
+        for (int side = 0; side < sideFaces.length; side ++)
+            for (int column = 0; column < 3; column ++) {
+                int color = state.getFacelet(sideFaces[side] * 9 + column), colorSide = -1;
+                for (int count = 0; count < sideFaces.length; count ++)
+                    if (state.getFacelet(sideFaces[count] * 9 + 4) == color)
+                        colorSide = count;
+                if (colorSide == -1)
+                    return null;
+                key = key << 2 | (colorSide - side) & 3;
+            }
+        return key;
+    }
+
+    /**
+     * Moves that orient the last layer of a cube with the first two layers solved, or null for an impossible pattern.
+     */
+    static String[] orientationMoves(CubeState state) {
+        return orientationCases.get(orientationKey(state));
+    }
+
+    /**
+     * Moves that solve the last layer of a cube with an oriented last layer, or null for an impossible pattern.
+     */
+    static String[] permutationMoves(CubeState state) {
+        Integer key = permutationKey(state);
+        return key == null ? null : permutationCases.get(key);
+    }
+}
@@ -0,0 +1,199 @@
+package RubiksCubeSolver3D;
+
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.util.Duration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Plays queued moves one after the other on the JavaFX thread: a move starts when the layer animations of the previous
+ * one (and the pause after it) are over, never on a fixed clock. Runs of the same quarter turn are played as one turn
+ * (U U as U2, U U U as U'), and runs of moves that turn different layers about the same axis, which commute, share one
+ * time slot (U D', R M, or a rotation after nothing on its axis). When a single time slot takes more than MAX_LAG
+ * seconds longer than its turn and pause, because frames take longer than the turns allow, the rest of the queue
+ * is applied at once instead of piling up.
+ */
+
+final class MoveAnimator {
+
+    private static final double MAX_LAG = 0.5;
+
+    interface Turner {
+        /**
+         * Builds, without playing it, the animation of one layer turn as produced by CubeState.translateMove;
+         * the turn is applied to the cube when the animation finishes.
+         */
+        Animation animateLayer(String layerMove, double seconds);
+
+        /**
+         * Applies a move to the cube at once.
+         */
+        void applyMove(String move);
+    }
+
+    private final Turner turner;
+    private final DoubleSupplier turnSeconds;
+    private final DoubleSupplier pauseSeconds;
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private final ArrayList<Animation> running = new ArrayList<>();
+    private String pending;
+    private Runnable onFinished;
+    private RenderMetrics metrics;
+    private boolean playing;
+    private long slotStart = -1;
+    private double slotSeconds;
+
+    MoveAnimator(Turner turner, DoubleSupplier turnSeconds, DoubleSupplier pauseSeconds) {
+        this.turner = turner;
+        this.turnSeconds = turnSeconds;
+        this.pauseSeconds = pauseSeconds;
+    }
+
+    /**
+     * Reports the start and the end of every animated time slot to metrics.
+     */
+    void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Adds the moves to the queue; onFinished runs once the queue is empty again.
+     */
+    void play(String[] moves, Runnable onFinished) {
+        for (String move : moves)
+            queue.add(move);
+        this.onFinished = onFinished;
+        if (!playing) {
+            playing = true;
+            slotStart = -1;
+            next();
+        }
+    }
+
+    boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Drops the queued moves and stops the running animations without applying them.
+     */
+    void stop() {
+        queue.clear();
+        pending = null;
+        for (Animation animation : running)
+            animation.stop();
+        running.clear();
+        playing = false;
+    }
+
+    private void next() {
+        if (!playing)
+            return;
+        String move = nextMove();
+        if (move == null) {
+            playing = false;
+            if (onFinished != null)
+                onFinished.run();
+            return;
+        }
+        if (slotStart != -1 && (System.nanoTime() - slotStart) / 1e9 > slotSeconds + MAX_LAG) {
+            turner.applyMove(move);
+            while ((move = nextMove()) != null)
+                turner.applyMove(move);
+            next();
+            return;
+        }
+        double seconds = turnSeconds.getAsDouble();
+        slotStart = System.nanoTime();
+        slotSeconds = seconds + pauseSeconds.getAsDouble();
+        char axis = CubeState.translateMove(move)[0].charAt(0);
+        String layers = "";
+        while (move != null && commutes(move, axis, layers)) {
+            for (String layerMove : CubeState.translateMove(move))
+                if (layerMove != null) {
+                    layers += layerMove.charAt(1);
+                    Animation animation = turner.animateLayer(layerMove, seconds);
+                    EventHandler<ActionEvent> applyLayerMove = animation.getOnFinished();
+                    animation.setOnFinished(event -> {
+                        if (applyLayerMove != null)
+                            applyLayerMove.handle(event);
+                        layerFinished(animation);
+                    });
+                    running.add(animation);
+                }
+            move = nextMove();
+        }
+        pending = move;
+        if (metrics != null)
+            metrics.moveStarted();
+        for (Animation animation : new ArrayList<>(running))
+            animation.play();
+    }
+
+    /**
+     * True when every layer the move turns is on the given axis and not among the layers already turning.
+     */
+    private static boolean commutes(String move, char axis, String layers) {
+        for (String layerMove : CubeState.translateMove(move))
+            if (layerMove != null && (layerMove.charAt(0) != axis || layers.indexOf(layerMove.charAt(1)) != -1))
+                return false;
+        return true;
+    }
+
+    private void layerFinished(Animation animation) {
+        running.remove(animation);
+        if (!running.isEmpty() || !playing)
+            return;
+        if (metrics != null)
+            metrics.moveFinished();
+        if (pauseSeconds.getAsDouble() > 0) {
+            PauseTransition pause = new PauseTransition(Duration.seconds(pauseSeconds.getAsDouble()));
+            pause.setOnFinished(event -> {
+                running.remove(pause);
+                next();
+            });
+            running.add(pause);
+            pause.play();
+        }
+        else
+            next();
+    }
+
+    /**
+     * Takes the next move off the queue together with the copies of it that follow, or returns null when the queue is empty.
+     * Quarter turns that add up to nothing are skipped. A move put back by next comes first.
+     */
+    private String nextMove() {
+        if (pending != null) {
+            String move = pending;
+            pending = null;
+            return move;
+        }
+        while (!queue.isEmpty()) {
+            String move = queue.poll();
+            if (move.length() > 1 && move.charAt(1) == '2')
+                return move;
+            int quarterTurns = 1;
+            while (move.equals(queue.peek())) {
+                queue.poll();
+                quarterTurns ++;
+            }
+            String face = move.substring(0, 1);
+            boolean inverse = move.endsWith("'");
+            switch (quarterTurns % 4) {
+                case 1:
+                    return move;
+                case 2:
+                    return face + "2";
+                case 3:
+                    return inverse ? face : face + "'";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package RubiksCubeSolver3D;
+
+import java.util.ArrayList;
+
+/**
+ * Every move played in the session, one byte each (its index in CubeState.MOVES), in fixed size chunks that are
+ * never copied, so appending stays cheap however long the session gets. The moves are grouped into segments:
+ * consecutive user moves or scrambles extend the segment before them, every solution starts a new one.
+ */
+
+final class MoveHistory {
+
+    static final int USER = 0;
+    static final int SCRAMBLE = 1;
+    static final int SOLVER = 2;
+
+    private static final int CHUNK_SIZE = 4096;
+
+    static final class Segment {
+        final int kind;
+        final int start;
+        private int length;
+        private String note;
+
+        private Segment(int kind, int start) {
+            this.kind = kind;
+            this.start = start;
+        }
+
+        int getLength() {
+            return length;
+        }
+
+        /**
+         * Extra text shown after the moves, or null.
+         */
+        String getNote() {
+            return note;
+        }
+
+        /**
+         * The title shown above the moves, with their number.
+         */
+        String getTitle() {
+            switch (kind) {
+                case USER:
+                    return (length == 1 ? "User move (" : "User moves (") + length + "):";
+                case SCRAMBLE:
+                    return "Scramble moves (" + length + "):";
+                default:
+                    return "Solver moves (" + length + "):";
+            }
+        }
+    }
+
+    private final ArrayList<byte[]> chunks = new ArrayList<>();
+    private final ArrayList<Segment> segments = new ArrayList<>();
+    private int size;
+
+    void add(int kind, String[] moves) {
+        Segment segment = getLastSegment();
+        if (segment == null || segment.kind != kind || kind == SOLVER) {
+            segment = new Segment(kind, size);
+            segments.add(segment);
+        }
+        for (String move : moves) {
+            if (size % CHUNK_SIZE == 0)
+                chunks.add(new byte[CHUNK_SIZE]);
+            chunks.get(size / CHUNK_SIZE)[size % CHUNK_SIZE] = (byte) CubeState.getMoveIndex(move);
+            size ++;
+        }
+        segment.length += moves.length;
+    }
+
+    void setNote(String note) {
+        getLastSegment().note = note;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Move " + index + " of " + size);
+        return CubeState.MOVES[chunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE]];
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    Segment getSegment(int index) {
+        return segments.get(index);
+    }
+
+    Segment getLastSegment() {
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    void clear() {
+        chunks.clear();
+        segments.clear();
+        size = 0;
+    }
+}
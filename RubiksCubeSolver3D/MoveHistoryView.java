@@ -0,0 +1,84 @@
+package RubiksCubeSolver3D;
+
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+/**
+ * Shows the last segment of a MoveHistory: its title, its moves separated by commas and its note.
+ * The moves are split over Text nodes of at most MOVES_PER_TEXT moves, and refresh only adds the moves that
+ * are not shown yet, so only the last of those nodes is ever rewritten.
+ */
+
+final class MoveHistoryView extends TextFlow {
+
+    private static final int MOVES_PER_TEXT = 64;
+
+    private final MoveHistory history;
+    private final String textStyle;
+    private MoveHistory.Segment shownSegment;
+    private int shownMoves;
+    private Text titleText;
+    private Text movesText;
+    private Text noteText;
+
+    MoveHistoryView(MoveHistory history, String textStyle) {
+        this.history = history;
+        this.textStyle = textStyle;
+    }
+
+    private Text createText(String content) {
+        Text text = new Text(content);
+        text.setStyle(textStyle);
+        return text;
+    }
+
+    /**
+     * Brings the view up to date with the history.
+     */
+    void refresh() {
+        MoveHistory.Segment segment = history.getLastSegment();
+        if (segment == null) {
+            getChildren().clear();
+            shownSegment = null;
+            return;
+        }
+        if (segment != shownSegment) {
+            shownSegment = segment;
+            shownMoves = 0;
+            titleText = createText("");
+            movesText = null;
+            noteText = null;
+            getChildren().setAll(titleText);
+        }
+        titleText.setText(segment.getTitle() + "\n");
+        while (shownMoves < segment.getLength()) {
+            if (movesText == null || shownMoves % MOVES_PER_TEXT == 0) {
+                movesText = createText("");
+                getChildren().add(noteText == null ? getChildren().size() : getChildren().size() - 1, movesText);
+            }
+            StringBuilder moves = new StringBuilder(movesText.getText());
+            do {
+                if (shownMoves > 0)
+                    moves.append(", ");
+                moves.append(history.get(segment.start + shownMoves));
+                shownMoves ++;
+            } while (shownMoves < segment.getLength() && shownMoves % MOVES_PER_TEXT != 0);
+            movesText.setText(moves.toString());
+        }
+        if (segment.getNote() != null) {
+            if (noteText == null) {
+                noteText = createText("");
+                getChildren().add(noteText);
+            }
+            noteText.setText("\n" + segment.getNote());
+        }
+    }
+
+    /**
+     * Replaces the moves with a message until the next refresh with a new segment.
+     */
+    void showMessage(String message) {
+        getChildren().setAll(createText(message));
+        shownSegment = null;
+    }
+}
@@ -0,0 +1,205 @@
+package RubiksCubeSolver3D;
+
+import java.util.ArrayList;
+
+/**
+ * Shortens a move sequence without changing the cube it produces, in a single pass over the moves.
+ * Every layer turn is stored as an axis (x, y, z), a layer on it (L M R, D E U, B S F) and a number of quarter turns
+ * in the direction of the x, y or z rotation. Whole-cube rotations are not kept in place: the moves after them are
+ * relabeled as seen from the original orientation, and the total rotation is added once at the end.
+ * Moves on the same axis commute, so consecutive ones collect on top of a stack as the quarter turns of each layer;
+ * a group that cancels out is popped, which lets the group under it merge with the following moves.
+ * When turning all three layers of a group the same way is one move less, that turn becomes part of the rotation.
+ * Solutions can leave the rotation out entirely, so they are played with layer turns only.
+ */
+
+final class MoveOptimizer {
+
+    private static final int AXES = 3;
+    private static final int LAYERS = 3;
+    private static final String[][] LAYER_NAMES = {{"L", "M", "R"}, {"D", "E", "U"}, {"B", "S", "F"}};
+    private static final String[] ROTATION_NAMES = {"x", "y", "z"};
+    private static final int[][] LAYER_DIRECTIONS = {{-1, -1, 1}, {-1, -1, 1}, {-1, 1, 1}};
+
+    private static final ArrayList<CubeState> orientations = new ArrayList<>();
+    private static final ArrayList<String[]> orientationMoves = new ArrayList<>();
+    private static int[][][] rotate;
+    private static int[][][] rotateBefore;
+    private static int[][] conjugateLayer;
+
+    static {
+        setupOrientations();
+        setupTables();
+    }
+
+    private MoveOptimizer() {}
+
+    /**
+     * The 24 orientations of the cube in breadth first order, each with the shortest rotations leading to it.
+     */
+    private static void setupOrientations() {
+        orientations.add(new CubeState());
+        orientationMoves.add(new String[0]);
+        for (int count = 0; count < orientations.size(); count ++)
+            for (int axis = 0; axis < AXES; axis ++)
+                for (int turns = 1; turns < 4; turns ++) {
+                    String rotation = moveName(ROTATION_NAMES[axis], turns);
+                    CubeState orientation = new CubeState(orientations.get(count));
+                    orientation.applyMove(rotation);
+                    if (!orientations.contains(orientation)) {
+                        String[] moves = new String[orientationMoves.get(count).length + 1];
+                        System.arraycopy(orientationMoves.get(count), 0, moves, 0, moves.length - 1);
+                        moves[moves.length - 1] = rotation;
+                        orientations.add(orientation);
+                        orientationMoves.add(moves);
+                    }
+                }
+    }
+
+    /**
+     * rotate[o][axis][turns] is orientation o followed by a rotation, rotateBefore the rotation followed by o.
+     * conjugateLayer[o][axis * LAYERS + layer] is the quarter turn that, done before the rotations of o, has the same
+     * effect as the given quarter turn done after them, as axis * LAYERS + layer, negated when it turns the other way.
+     */
+    private static void setupTables() {
+        int size = orientations.size();
+        rotate = new int[size][AXES][4];
+        rotateBefore = new int[size][AXES][4];
+        conjugateLayer = new int[size][AXES * LAYERS];
+        for (int orientation = 0; orientation < size; orientation ++) {
+            for (int axis = 0; axis < AXES; axis ++)
+                for (int turns = 0; turns < 4; turns ++) {
+                    CubeState after = new CubeState(orientations.get(orientation));
+                    CubeState before = new CubeState();
+                    if (turns > 0) {
+                        after.applyMove(moveName(ROTATION_NAMES[axis], turns));
+                        before.applyMove(moveName(ROTATION_NAMES[axis], turns));
+                    }
+                    for (String move : orientationMoves.get(orientation))
+                        before.applyMove(move);
+                    rotate[orientation][axis][turns] = orientations.indexOf(after);
+                    rotateBefore[orientation][axis][turns] = orientations.indexOf(before);
+                }
+            for (int layer = 0; layer < AXES * LAYERS; layer ++) {
+                CubeState target = new CubeState();
+                for (String move : orientationMoves.get(orientation))
+                    target.applyMove(move);
+                target.applyMove(moveName(LAYER_NAMES[layer / LAYERS][layer % LAYERS], LAYER_DIRECTIONS[layer / LAYERS][layer % LAYERS]));
+                for (int count = orientationMoves.get(orientation).length - 1; count >= 0; count --)
+                    target.applyMove(inverse(orientationMoves.get(orientation)[count]));
+                for (int candidate = 0; candidate < AXES * LAYERS; candidate ++)
+                    for (int direction = -1; direction <= 1; direction += 2) {
+                        CubeState state = new CubeState();
+                        state.applyMove(moveName(LAYER_NAMES[candidate / LAYERS][candidate % LAYERS], direction * LAYER_DIRECTIONS[candidate / LAYERS][candidate % LAYERS]));
+                        if (state.equals(target))
+                            conjugateLayer[orientation][layer] = direction * (candidate + 1);
+                    }
+            }
+        }
+    }
+
+    private static String moveName(String name, int turns) {
+        switch (turns & 3) {
+            case 1:
+                return name;
+            case 2:
+                return name + "2";
+            case 3:
+                return name + "'";
+            default:
+                return null;
+        }
+    }
+
+    private static String inverse(String move) {
+        return move.endsWith("2") ? move : move.endsWith("'") ? move.substring(0, 1) : move + "'";
+    }
+
+    /**
+     * Returns a sequence, never longer than moves, that leaves the cube exactly as moves does (orientation included).
+     * The result uses half turns ("U2") where two quarter turns of the same layer add up.
+     */
+    static String[] optimize(String[] moves) {
+        return optimize(moves, true);
+    }
+
+    /**
+     * Same as optimize, but without any whole-cube rotation: the cube ends up as after moves up to the way it is held,
+     * which is all a solution needs, and no rotation has to be animated as three layer turns.
+     */
+    static String[] withoutRotations(String[] moves) {
+        return optimize(moves, false);
+    }
+
+    private static String[] optimize(String[] moves, boolean keepOrientation) {
+        int[] axes = new int[moves.length];
+        int[] turns = new int[moves.length * LAYERS];
+        int top = -1, orientation = 0;
+        for (String move : moves) {
+            int axis = -1, layer = -1;
+            for (int count = 0; count < AXES; count ++) {
+                if (move.startsWith(ROTATION_NAMES[count]))
+                    axis = count;
+                for (int count2 = 0; count2 < LAYERS; count2 ++)
+                    if (move.startsWith(LAYER_NAMES[count][count2])) {
+                        axis = count;
+                        layer = count2;
+                    }
+            }
+            if (axis == -1 || move.length() > 2 || (move.length() == 2 && move.charAt(1) != '\'' && move.charAt(1) != '2'))
+                throw new IllegalArgumentException("Unknown move " + move);
+            int quarterTurns = move.endsWith("2") ? 2 : move.endsWith("'") ? 3 : 1;
+            if (layer == -1) {
+                orientation = rotate[orientation][axis][quarterTurns];
+                continue;
+            }
+            int conjugate = conjugateLayer[orientation][axis * LAYERS + layer];
+            quarterTurns = quarterTurns * LAYER_DIRECTIONS[axis][layer] * Integer.signum(conjugate);
+            axis = (Math.abs(conjugate) - 1) / LAYERS;
+            layer = (Math.abs(conjugate) - 1) % LAYERS;
+            if (top == -1 || axes[top] != axis) {
+                top ++;
+                axes[top] = axis;
+                for (int count = 0; count < LAYERS; count ++)
+                    turns[top * LAYERS + count] = 0;
+            }
+            turns[top * LAYERS + layer] = (turns[top * LAYERS + layer] + quarterTurns) & 3;
+            int rotation = cheapestRotation(turns, top * LAYERS, keepOrientation);
+            if (rotation != 0) {
+                for (int count = 0; count < LAYERS; count ++)
+                    turns[top * LAYERS + count] = (turns[top * LAYERS + count] - rotation) & 3;
+                orientation = rotateBefore[orientation][axis][rotation];
+            }
+            if (turns[top * LAYERS] == 0 && turns[top * LAYERS + 1] == 0 && turns[top * LAYERS + 2] == 0)
+                top --;
+        }
+        ArrayList<String> optimizedMoves = new ArrayList<>();
+        for (int count = 0; count <= top; count ++)
+            for (int count2 = LAYERS - 1; count2 >= 0; count2 --)
+                if (turns[count * LAYERS + count2] != 0)
+                    optimizedMoves.add(moveName(LAYER_NAMES[axes[count]][count2], turns[count * LAYERS + count2] * LAYER_DIRECTIONS[axes[count]][count2]));
+        if (keepOrientation)
+            for (String rotation : orientationMoves.get(orientation))
+                optimizedMoves.add(rotation);
+        return optimizedMoves.toArray(new String[0]);
+    }
+
+    /**
+     * The quarter turns of the whole cube to take out of a group, or 0 if none pays off.
+     * The rotation counts as one more move unless rotations are dropped anyway.
+     */
+    private static int cheapestRotation(int[] turns, int group, boolean keepOrientation) {
+        int best = 0, bestMoves = LAYERS + 1;
+        for (int rotation = 0; rotation < 4; rotation ++) {
+            int groupMoves = rotation != 0 && keepOrientation ? 1 : 0;
+            for (int count = 0; count < LAYERS; count ++)
+                if (turns[group + count] != rotation)
+                    groupMoves ++;
+            if (groupMoves < bestMoves) {
+                best = rotation;
+                bestMoves = groupMoves;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,130 @@
+package RubiksCubeSolver3D;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Coordinate move tables of the cubie model: entry coordinate * MOVE_COUNT + move
+ * holds the coordinate reached by applying that face move.
+ * The slice permutation and U/D edge permutation tables are only filled for the moves
+ * that keep the E slice edges in the E slice (U, D, L2, R2, F2, B2).
+ */
+
+final class MoveTables {
+
+    static final int SOLVED_SLICE = new CubieState().getSlice();
+    static final int TABLES = 6;
+
+    static final char[] twistMove = cached("twist-move", CubieState.TWISTS, MoveTables::setupTwistMove);
+    static final char[] flipMove = cached("flip-move", CubieState.FLIPS, MoveTables::setupFlipMove);
+    static final char[] cornerPermutationMove = cached("corner-permutation-move", CubieState.CORNER_PERMUTATIONS, MoveTables::setupCornerPermutationMove);
+    static final char[] sliceMove = cached("slice-move", CubieState.SLICES, MoveTables::setupSliceMove);
+    static final char[] slicePermutationMove = cached("slice-permutation-move", CubieState.SLICE_PERMUTATIONS, MoveTables::setupSlicePermutationMove);
+    static final char[] udEdgePermutationMove = cached("ud-edge-permutation-move", CubieState.UD_EDGE_PERMUTATIONS, MoveTables::setupUDEdgePermutationMove);
+
+    private MoveTables() {}
+
+    /**
+     * The tables are small enough to be copied out of the TableCache into plain arrays, which keeps the searches on array accesses.
+     */
+    private static char[] cached(String name, int coordinates, Supplier<char[]> builder) {
+        char[] table = new char[coordinates * CubieState.MOVE_COUNT];
+        TableCache.load(name, table.length * 2, () -> {
+            ByteBuffer buffer = ByteBuffer.allocate(table.length * 2);
+            buffer.asCharBuffer().put(builder.get());
+            return buffer;
+        }).asCharBuffer().get(table);
+        return table;
+    }
+
+    private static char[] setupTwistMove() {
+        char[] table = new char[CubieState.TWISTS * CubieState.MOVE_COUNT];
+        CubieState state = new CubieState();
+        CubieState result = new CubieState();
+        for (int twist = 0; twist < CubieState.TWISTS; twist ++) {
+            state.setTwist(twist);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++) {
+                CubieState.multiply(state, CubieState.moveCubes[move], result);
+                table[twist * CubieState.MOVE_COUNT + move] = (char) result.getTwist();
+            }
+        }
+        return table;
+    }
+
+    private static char[] setupFlipMove() {
+        char[] table = new char[CubieState.FLIPS * CubieState.MOVE_COUNT];
+        CubieState state = new CubieState();
+        CubieState result = new CubieState();
+        for (int flip = 0; flip < CubieState.FLIPS; flip ++) {
+            state.setFlip(flip);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++) {
+                CubieState.multiply(state, CubieState.moveCubes[move], result);
+                table[flip * CubieState.MOVE_COUNT + move] = (char) result.getFlip();
+            }
+        }
+        return table;
+    }
+
+    private static char[] setupCornerPermutationMove() {
+        char[] table = new char[CubieState.CORNER_PERMUTATIONS * CubieState.MOVE_COUNT];
+        CubieState state = new CubieState();
+        CubieState result = new CubieState();
+        for (int permutation = 0; permutation < CubieState.CORNER_PERMUTATIONS; permutation ++) {
+            state.setCornerPermutation(permutation);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++) {
+                CubieState.multiply(state, CubieState.moveCubes[move], result);
+                table[permutation * CubieState.MOVE_COUNT + move] = (char) result.getCornerPermutation();
+            }
+        }
+        return table;
+    }
+
+    private static char[] setupSliceMove() {
+        char[] table = new char[CubieState.SLICES * CubieState.MOVE_COUNT];
+        CubieState state = new CubieState();
+        CubieState result = new CubieState();
+        for (int slice = 0; slice < CubieState.SLICES; slice ++) {
+            state.setSlice(slice);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++) {
+                CubieState.multiply(state, CubieState.moveCubes[move], result);
+                table[slice * CubieState.MOVE_COUNT + move] = (char) result.getSlice();
+            }
+        }
+        return table;
+    }
+
+    private static char[] setupSlicePermutationMove() {
+        char[] table = new char[CubieState.SLICE_PERMUTATIONS * CubieState.MOVE_COUNT];
+        CubieState state = new CubieState();
+        CubieState result = new CubieState();
+        for (int permutation = 0; permutation < CubieState.SLICE_PERMUTATIONS; permutation ++) {
+            state.setSlicePermutation(permutation);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++)
+                if (keepsSlice(move)) {
+                    CubieState.multiply(state, CubieState.moveCubes[move], result);
+                    table[permutation * CubieState.MOVE_COUNT + move] = (char) result.getSlicePermutation();
+                }
+        }
+        return table;
+    }
+
+    private static char[] setupUDEdgePermutationMove() {
+        char[] table = new char[CubieState.UD_EDGE_PERMUTATIONS * CubieState.MOVE_COUNT];
+        CubieState state = new CubieState();
+        CubieState result = new CubieState();
+        for (int permutation = 0; permutation < CubieState.UD_EDGE_PERMUTATIONS; permutation ++) {
+            state.setUDEdgePermutation(permutation);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++)
+                if (keepsSlice(move)) {
+                    CubieState.multiply(state, CubieState.moveCubes[move], result);
+                    table[permutation * CubieState.MOVE_COUNT + move] = (char) result.getUDEdgePermutation();
+                }
+        }
+        return table;
+    }
+
+    static boolean keepsSlice(int move) {
+        return sliceMove[SOLVED_SLICE * CubieState.MOVE_COUNT + move] == SOLVED_SLICE && CubieState.moveCubes[move].getFlip() == 0
+                && CubieState.moveCubes[move].getTwist() == 0;
+    }
+}
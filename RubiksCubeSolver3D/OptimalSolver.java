@@ -0,0 +1,272 @@
+package RubiksCubeSolver3D;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optimal solver in the face turn metric: Korf's IDA* over the cubie model, bounded by three pattern databases
+ * (all corners, and the two halves of the edges six at a time).
+ * The first levels of every iteration are split into fork-join tasks; the first task to reach the goal publishes
+ * the solution length in a shared bound and every other task stops as soon as it sees it.
+ */
+
+public class OptimalSolver {
+
+    static final int TABLES = 5;
+    private static final int MAX_DEPTH = 20;
+    private static final int SPLIT_DEPTH = 3;
+    private static final int FIRST_EDGE_SET = 0;
+    private static final int SECOND_EDGE_SET = CubieState.EDGE_SET_SIZE;
+    private static final int EDGE_SET_ENTRIES = CubieState.EDGE_SET_POSITIONS * CubieState.EDGE_SET_ORIENTATIONS;
+    private static final int EDGE_SET_MOVES = CubieState.EDGE_SET_POSITIONS * CubieState.MOVE_COUNT;
+    private static final int[] allMoves = setupAllMoves();
+    private static final int[][] newEdgeSlots = setupNewEdgeSlots();
+
+    private final CubieState start;
+    private final AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE);
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+    private final LongAdder nodes = new LongAdder();
+    private volatile boolean cancelled;
+    private long elapsed;
+
+    public OptimalSolver(CubeState state) {
+        start = CubieState.fromState(state);
+        if (!start.isSolvable())
+            throw new IllegalArgumentException("Unsolvable cube");
+    }
+
+    private static final class Tables {
+        static final IntBuffer edgeSetPositionMove = TableCache.load("edge-set-position-move", EDGE_SET_MOVES * 4,
+                OptimalSolver::setupEdgeSetPositionMove).asIntBuffer();
+        static final ByteBuffer edgeSetFlipMove = TableCache.load("edge-set-flip-move", EDGE_SET_MOVES,
+                OptimalSolver::setupEdgeSetFlipMove);
+        static final int firstSolvedEdges = edgeSetIndex(new CubieState(), FIRST_EDGE_SET);
+        static final int secondSolvedEdges = edgeSetIndex(new CubieState(), SECOND_EDGE_SET);
+        static final PruningTable corners = PruningTable.cached("corners", CubieState.CORNER_PERMUTATIONS * CubieState.TWISTS,
+                () -> PruningTable.build(CubieState.CORNER_PERMUTATIONS, MoveTables.cornerPermutationMove, CubieState.TWISTS, MoveTables.twistMove, 0, allMoves));
+        static final PruningTable firstEdges = PruningTable.cached("first-edges", EDGE_SET_ENTRIES,
+                () -> PruningTable.build(EDGE_SET_ENTRIES, firstSolvedEdges, allMoves, edgeSetTransition(edgeSetPositionMove, edgeSetFlipMove)));
+        static final PruningTable secondEdges = PruningTable.cached("second-edges", EDGE_SET_ENTRIES,
+                () -> PruningTable.build(EDGE_SET_ENTRIES, secondSolvedEdges, allMoves, edgeSetTransition(edgeSetPositionMove, edgeSetFlipMove)));
+    }
+
+    private static int[] setupAllMoves() {
+        int[] moves = new int[CubieState.MOVE_COUNT];
+        for (int count = 0; count < CubieState.MOVE_COUNT; count ++)
+            moves[count] = count;
+        return moves;
+    }
+
+    /**
+     * The position part of an edge set coordinate does not depend on which six edges are tracked,
+     * so both pattern databases share one move table; the flip table holds the orientation bits every move toggles.
+     */
+    private static ByteBuffer setupEdgeSetPositionMove() {
+        ByteBuffer table = ByteBuffer.allocate(EDGE_SET_MOVES * 4);
+        int[] slots = new int[CubieState.EDGE_SET_SIZE];
+        int[] movedSlots = new int[CubieState.EDGE_SET_SIZE];
+        for (int position = 0; position < CubieState.EDGE_SET_POSITIONS; position ++) {
+            CubieState.indexToSlots(position, slots);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++) {
+                for (int count = 0; count < CubieState.EDGE_SET_SIZE; count ++)
+                    movedSlots[count] = newEdgeSlots[move][slots[count]];
+                table.putInt((position * CubieState.MOVE_COUNT + move) * 4, CubieState.slotsToIndex(movedSlots));
+            }
+        }
+        return table;
+    }
+
+    private static ByteBuffer setupEdgeSetFlipMove() {
+        ByteBuffer table = ByteBuffer.allocate(EDGE_SET_MOVES);
+        int[] slots = new int[CubieState.EDGE_SET_SIZE];
+        for (int position = 0; position < CubieState.EDGE_SET_POSITIONS; position ++) {
+            CubieState.indexToSlots(position, slots);
+            for (int move = 0; move < CubieState.MOVE_COUNT; move ++) {
+                int flip = 0;
+                for (int count = 0; count < CubieState.EDGE_SET_SIZE; count ++)
+                    flip |= CubieState.moveCubes[move].edgeOrientation[newEdgeSlots[move][slots[count]]] << count;
+                table.put(position * CubieState.MOVE_COUNT + move, (byte) flip);
+            }
+        }
+        return table;
+    }
+
+    private static int[][] setupNewEdgeSlots() {
+        int[][] newSlots = new int[CubieState.MOVE_COUNT][CubieState.EDGES];
+        for (int move = 0; move < CubieState.MOVE_COUNT; move ++)
+            for (int slot = 0; slot < CubieState.EDGES; slot ++)
+                newSlots[move][CubieState.moveCubes[move].edgePermutation[slot]] = slot;
+        return newSlots;
+    }
+
+    private static int edgeSetIndex(CubieState state, int firstEdge) {
+        return state.getEdgeSetPosition(firstEdge) * CubieState.EDGE_SET_ORIENTATIONS + state.getEdgeSetOrientation(firstEdge);
+    }
+
+    /**
+     * The pattern databases are built by parallel workers while Tables is still being initialized,
+     * so the transition must not touch Tables itself: the workers would wait for its initialization forever.
+     */
+    private static PruningTable.Transition edgeSetTransition(IntBuffer positionMove, ByteBuffer flipMove) {
+        return (index, move) -> moveEdgeSet(positionMove, flipMove, index, move);
+    }
+
+    private static int moveEdgeSet(IntBuffer positionMove, ByteBuffer flipMove, int index, int move) {
+        int entry = index / CubieState.EDGE_SET_ORIENTATIONS * CubieState.MOVE_COUNT + move;
+        return positionMove.get(entry) * CubieState.EDGE_SET_ORIENTATIONS + (index % CubieState.EDGE_SET_ORIENTATIONS ^ flipMove.get(entry));
+    }
+
+    private static int moveEdgeSet(int index, int move) {
+        return moveEdgeSet(Tables.edgeSetPositionMove, Tables.edgeSetFlipMove, index, move);
+    }
+
+    /**
+     * Builds the pattern databases, which otherwise happens on the first solve.
+     */
+    public static void prepare() {
+        Tables.secondEdges.get(0);
+    }
+
+    private static int distance(int corners, int firstEdges, int secondEdges) {
+        return Math.max(Tables.corners.get(corners), Math.max(Tables.firstEdges.get(firstEdges), Tables.secondEdges.get(secondEdges)));
+    }
+
+    /**
+     * Returns an optimal solution, or null when the search was cancelled.
+     */
+    public String[] solve() {
+        return solve(ForkJoinPool.commonPool());
+    }
+
+    public String[] solve(ForkJoinPool pool) {
+        prepare();
+        long startTime = System.nanoTime();
+        int corners = start.getCornerPermutation() * CubieState.TWISTS + start.getTwist();
+        int firstEdges = edgeSetIndex(start, FIRST_EDGE_SET), secondEdges = edgeSetIndex(start, SECOND_EDGE_SET);
+        for (int depth = distance(corners, firstEdges, secondEdges); depth <= MAX_DEPTH && solution.get() == null && !cancelled; depth ++)
+            pool.invoke(new SearchTask(corners, firstEdges, secondEdges, new int[0], depth));
+        elapsed = System.nanoTime() - startTime;
+        if (solution.get() == null)
+            return null;
+        String[] solverMoves = new String[solution.get().length];
+        for (int count = 0; count < solverMoves.length; count ++)
+            solverMoves[count] = CubieState.FACE_MOVES[solution.get()[count]];
+        return solverMoves;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    public double getNodesPerSecond() {
+        return elapsed == 0 ? 0 : nodes.sum() * 1e9 / elapsed;
+    }
+
+    public double getSeconds() {
+        return elapsed / 1e9;
+    }
+
+    private boolean stopped(int depth) {
+        return cancelled || bound.get() <= depth;
+    }
+
+    private final class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int corners, firstEdges, secondEdges, depth;
+        private final int[] path;
+
+        SearchTask(int corners, int firstEdges, int secondEdges, int[] path, int depth) {
+            this.corners = corners;
+            this.firstEdges = firstEdges;
+            this.secondEdges = secondEdges;
+            this.path = path;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (path.length < SPLIT_DEPTH && path.length < depth) {
+                ArrayList<SearchTask> tasks = new ArrayList<>();
+                for (int move : allMoves) {
+                    if (path.length > 0 && CubieState.isRedundant(move, path[path.length - 1]))
+                        continue;
+                    int nextCorners = moveCorners(corners, move);
+                    int nextFirstEdges = moveEdgeSet(firstEdges, move), nextSecondEdges = moveEdgeSet(secondEdges, move);
+                    if (distance(nextCorners, nextFirstEdges, nextSecondEdges) >= depth - path.length)
+                        continue;
+                    int[] nextPath = new int[path.length + 1];
+                    System.arraycopy(path, 0, nextPath, 0, path.length);
+                    nextPath[path.length] = move;
+                    tasks.add(new SearchTask(nextCorners, nextFirstEdges, nextSecondEdges, nextPath, depth));
+                }
+                nodes.add(tasks.size());
+                invokeAll(tasks);
+                return;
+            }
+            int[] moves = new int[depth];
+            System.arraycopy(path, 0, moves, 0, path.length);
+            long[] counter = new long[1];
+            if (search(corners, firstEdges, secondEdges, moves, path.length, counter) && bound.compareAndSet(Integer.MAX_VALUE, depth))
+                solution.set(moves);
+            nodes.add(counter[0]);
+        }
+
+        private boolean search(int corners, int firstEdges, int secondEdges, int[] moves, int length, long[] counter) {
+            int togo = depth - length;
+            if (togo == 0)
+                return corners == 0 && firstEdges == Tables.firstSolvedEdges && secondEdges == Tables.secondSolvedEdges;
+            if ((++ counter[0] & 0x3fff) == 0 && stopped(depth))
+                return false;
+            for (int move : allMoves) {
+                if (length > 0 && CubieState.isRedundant(move, moves[length - 1]))
+                    continue;
+                int nextCorners = moveCorners(corners, move);
+                if (Tables.corners.get(nextCorners) >= togo)
+                    continue;
+                int nextFirstEdges = moveEdgeSet(firstEdges, move);
+                if (Tables.firstEdges.get(nextFirstEdges) >= togo)
+                    continue;
+                int nextSecondEdges = moveEdgeSet(secondEdges, move);
+                if (Tables.secondEdges.get(nextSecondEdges) >= togo)
+                    continue;
+                moves[length] = move;
+                if (search(nextCorners, nextFirstEdges, nextSecondEdges, moves, length + 1, counter))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    private static int moveCorners(int index, int move) {
+        return MoveTables.cornerPermutationMove[index / CubieState.TWISTS * CubieState.MOVE_COUNT + move] * CubieState.TWISTS
+                + MoveTables.twistMove[index % CubieState.TWISTS * CubieState.MOVE_COUNT + move];
+    }
+
+    /**
+     * Headless entry point: solves the scramble given as arguments (for example R U R' F2) and reports the search speed.
+     */
+    public static void main(String[] args) {
+        CubeState state = new CubeState();
+        for (String move : args)
+            state.applyMove(move);
+        long startTime = System.nanoTime();
+        prepare();
+        System.out.printf("Pattern databases ready in %.1f s%n", (System.nanoTime() - startTime) / 1e9);
+        OptimalSolver solver = new OptimalSolver(state);
+        String[] moves = solver.solve();
+        System.out.println("Solution (" + moves.length + "): " + String.join(" ", moves));
+        System.out.printf("%,d nodes in %.2f s, %,.0f nodes/s%n", solver.getNodes(), solver.getSeconds(), solver.getNodesPerSecond());
+    }
+}
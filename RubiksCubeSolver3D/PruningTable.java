@@ -0,0 +1,109 @@
+package RubiksCubeSolver3D;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Distance table over a coordinate, or a pair of coordinates with index a * sizeB + b, packed two entries per byte.
+ * Every entry holds the number of moves needed to bring the coordinates back to their goal.
+ */
+
+final class PruningTable {
+
+    static final int UNKNOWN = 0x0f;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final ByteBuffer table;
+
+    PruningTable(int size) {
+        byte[] entries = new byte[(size + 1) / 2];
+        Arrays.fill(entries, (byte) 0xff);
+        table = ByteBuffer.wrap(entries);
+    }
+
+    private PruningTable(ByteBuffer table) {
+        this.table = table;
+    }
+
+    int get(int index) {
+        return (table.get(index >> 1) >> ((index & 1) << 2)) & 0x0f;
+    }
+
+    void set(int index, int value) {
+        int shift = (index & 1) << 2;
+        table.put(index >> 1, (byte) ((table.get(index >> 1) & ~(0x0f << shift)) | (value << shift)));
+    }
+
+    /**
+     * Loads the table from the TableCache, building and storing it first if needed.
+     */
+    static PruningTable cached(String name, int size, Supplier<PruningTable> builder) {
+        return new PruningTable(TableCache.load(name, (size + 1) / 2, () -> builder.get().table));
+    }
+
+    /**
+     * Maps a table index and a face move to the index reached by that move.
+     */
+    interface Transition {
+        int apply(int index, int move);
+    }
+
+    static PruningTable build(int sizeA, char[] moveA, int sizeB, char[] moveB, int goal, int[] moves) {
+        return build(sizeA * sizeB, goal, moves, (index, move) -> moveA[index / sizeB * CubieState.MOVE_COUNT + move] * sizeB
+                + moveB[index % sizeB * CubieState.MOVE_COUNT + move]);
+    }
+
+    /**
+     * Breadth first search from the goal. Once more than a quarter of the table is known the remaining entries
+     * look for a neighbour at the current depth instead, which needs far fewer probes on a nearly full table;
+     * those passes only write their own entries, so they run in parallel over chunks of the table.
+     */
+    static PruningTable build(int size, int goal, int[] moves, Transition transition) {
+        PruningTable table = new PruningTable(size);
+        table.set(goal, 0);
+        long filled = 1, added = 1;
+        int depth = 0;
+        while (filled < size && added > 0 && depth < UNKNOWN - 1) {
+            if (filled > size / 4) {
+                int finalDepth = depth;
+                int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+                added = IntStream.range(0, chunks).parallel().mapToLong(chunk -> table.fillBackward(chunk * CHUNK_SIZE,
+                        (int) Math.min((long) chunk * CHUNK_SIZE + CHUNK_SIZE, size), finalDepth, moves, transition)).sum();
+            }
+            else
+                added = table.fillForward(size, depth, moves, transition);
+            filled += added;
+            depth ++;
+        }
+        return table;
+    }
+
+    private long fillForward(int size, int depth, int[] moves, Transition transition) {
+        long added = 0;
+        for (int index = 0; index < size; index ++)
+            if (get(index) == depth)
+                for (int move : moves) {
+                    int neighbour = transition.apply(index, move);
+                    if (get(neighbour) == UNKNOWN) {
+                        set(neighbour, depth + 1);
+                        added ++;
+                    }
+                }
+        return added;
+    }
+
+    private long fillBackward(int from, int to, int depth, int[] moves, Transition transition) {
+        long added = 0;
+        for (int index = from; index < to; index ++)
+            if (get(index) == UNKNOWN)
+                for (int move : moves)
+                    if (get(transition.apply(index, move)) == depth) {
+                        set(index, depth + 1);
+                        added ++;
+                        break;
+                    }
+        return added;
+    }
+}
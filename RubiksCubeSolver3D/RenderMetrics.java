@@ -0,0 +1,192 @@
+package RubiksCubeSolver3D;
+
+import javafx.animation.AnimationTimer;
+import javafx.collections.ListChangeListener;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.text.Text;
+
+/**
+ * Rendering numbers for the cube, measured on the JavaFX thread while enabled: frames per second, pulse time
+ * (from the pre-layout to the post-layout pulse listener, so CSS, layout and the animations of the pulse, not the
+ * rendering itself), the nodes under the cube group, and per animated time slot the latency from the moment
+ * MoveAnimator starts it to its last layer animation finishing, with the nodes added to the cube group meanwhile.
+ * The values are refreshed once a second and shown by the overlay text when it is visible.
+ */
+
+final class RenderMetrics {
+
+    private static final long REFRESH_NANOS = 1_000_000_000L;
+
+    private final Scene scene;
+    private final Group cubeGroup;
+    private final Text overlay = new Text();
+    private boolean enabled;
+    private long periodStart, frames, pulses, pulseNanos, maxPulseNanos, pulseStart;
+    private long addedNodes, moveStart = -1, moveAddedNodes, moves;
+    private double framesPerSecond, averagePulseMillis, maxPulseMillis, lastMoveMillis, totalMoveMillis, maxMoveMillis;
+    private long lastMoveAddedNodes;
+    private int nodeCount;
+    private final Runnable prePulse = this::prePulse;
+    private final Runnable postPulse = this::postPulse;
+    private final ListChangeListener<Node> nodesAdded = change -> {
+        while (change.next())
+            addedNodes += change.getAddedSize();
+    };
+    private final AnimationTimer frameTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            frame(now);
+        }
+    };
+
+    RenderMetrics(Scene scene, Group cubeGroup) {
+        this.scene = scene;
+        this.cubeGroup = cubeGroup;
+        overlay.setMouseTransparent(true);
+        overlay.setVisible(false);
+    }
+
+    /**
+     * The text showing the metrics; it is only visible and only updated while the metrics are enabled.
+     */
+    Text getOverlay() {
+        return overlay;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (this.enabled == enabled)
+            return;
+        this.enabled = enabled;
+        overlay.setVisible(enabled);
+        if (enabled) {
+            reset();
+            scene.addPreLayoutPulseListener(prePulse);
+            scene.addPostLayoutPulseListener(postPulse);
+            cubeGroup.getChildren().addListener(nodesAdded);
+            frameTimer.start();
+        }
+        else {
+            frameTimer.stop();
+            scene.removePreLayoutPulseListener(prePulse);
+            scene.removePostLayoutPulseListener(postPulse);
+            cubeGroup.getChildren().removeListener(nodesAdded);
+        }
+    }
+
+    private void reset() {
+        periodStart = System.nanoTime();
+        frames = pulses = pulseNanos = maxPulseNanos = 0;
+        addedNodes = moves = 0;
+        moveStart = -1;
+        totalMoveMillis = maxMoveMillis = lastMoveMillis = 0;
+        lastMoveAddedNodes = 0;
+        framesPerSecond = averagePulseMillis = maxPulseMillis = 0;
+        nodeCount = countNodes(cubeGroup);
+        updateOverlay();
+    }
+
+    private void prePulse() {
+        pulseStart = System.nanoTime();
+    }
+
+    private void postPulse() {
+        long pulseTime = System.nanoTime() - pulseStart;
+        pulses ++;
+        pulseNanos += pulseTime;
+        maxPulseNanos = Math.max(maxPulseNanos, pulseTime);
+    }
+
+    private void frame(long now) {
+        frames ++;
+        if (now - periodStart < REFRESH_NANOS)
+            return;
+        framesPerSecond = frames * 1e9 / (now - periodStart);
+        averagePulseMillis = pulses == 0 ? 0 : pulseNanos / 1e6 / pulses;
+        maxPulseMillis = maxPulseNanos / 1e6;
+        nodeCount = countNodes(cubeGroup);
+        periodStart = now;
+        frames = pulses = pulseNanos = maxPulseNanos = 0;
+        updateOverlay();
+    }
+
+    /**
+     * Called by MoveAnimator when it starts the animations of a time slot.
+     */
+    void moveStarted() {
+        if (!enabled)
+            return;
+        moveStart = System.nanoTime();
+        moveAddedNodes = addedNodes;
+    }
+
+    /**
+     * Called by MoveAnimator when the last layer animation of the time slot has finished.
+     */
+    void moveFinished() {
+        if (!enabled || moveStart == -1)
+            return;
+        lastMoveMillis = (System.nanoTime() - moveStart) / 1e6;
+        lastMoveAddedNodes = addedNodes - moveAddedNodes;
+        moves ++;
+        totalMoveMillis += lastMoveMillis;
+        maxMoveMillis = Math.max(maxMoveMillis, lastMoveMillis);
+        moveStart = -1;
+    }
+
+    double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    double getAveragePulseMillis() {
+        return averagePulseMillis;
+    }
+
+    double getMaxPulseMillis() {
+        return maxPulseMillis;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    double getLastMoveMillis() {
+        return lastMoveMillis;
+    }
+
+    double getAverageMoveMillis() {
+        return moves == 0 ? 0 : totalMoveMillis / moves;
+    }
+
+    double getMaxMoveMillis() {
+        return maxMoveMillis;
+    }
+
+    /**
+     * Nodes added to the cube group while the last time slot was animated; with the cubies kept in the scene it should stay 0.
+     */
+    long getLastMoveAddedNodes() {
+        return lastMoveAddedNodes;
+    }
+
+    private void updateOverlay() {
+        overlay.setText(String.format("%.1f fps\npulse %.2f ms (max %.2f ms)\n%d nodes\nmove %.0f ms (avg %.0f ms, max %.0f ms)\n%d nodes added by last move",
+                framesPerSecond, averagePulseMillis, maxPulseMillis, nodeCount, lastMoveMillis, getAverageMoveMillis(), maxMoveMillis, lastMoveAddedNodes));
+    }
+
+    private static int countNodes(Parent parent) {
+        int nodes = 0;
+        for (Node node : parent.getChildrenUnmodifiable()) {
+            nodes ++;
+            if (node instanceof Parent)
+                nodes += countNodes((Parent) node);
+        }
+        return nodes;
+    }
+}
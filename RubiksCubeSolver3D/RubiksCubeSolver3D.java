@@ -4,6 +4,7 @@ import javafx.animation.*;
 import javafx.application.*;
 import javafx.beans.property.*;
 import javafx.geometry.Insets;
+import javafx.geometry.Point3D;
 import javafx.scene.*;
 import javafx.scene.control.*;
 import javafx.scene.control.Button;
@@ -11,12 +12,14 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.image.*;
 import javafx.scene.image.Image;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
 import javafx.scene.media.AudioClip;
 import javafx.scene.paint.*;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Box;
 import javafx.scene.text.*;
 import javafx.scene.text.Font;
 import javafx.scene.transform.*;
@@ -24,7 +27,10 @@ import javafx.stage.Stage;
 import javafx.util.*;
 
 import java.awt.*;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -35,7 +41,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class RubiksCubeSolver3D extends Application {
 
-    private static final Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
     private static final int SCREEN_WIDTH = 1126;
     private static final int SCREEN_HEIGHT = 700;
 
@@ -44,49 +49,6 @@ public class RubiksCubeSolver3D extends Application {
     private static final int CUBE_DIMENSION = 3;
     private static final int FACES = 6;
     private static final int CUBE_SIDE = 100;
-    private static final int[][] centralPieces = {
-            {1, 1, 2},
-            {1, 2, 1},
-            {1, 1, 0},
-            {1, 0, 1},
-            {0, 1, 1},
-            {2, 1, 1}
-    };
-    private static final int[][] edgePieces = {
-            {1, 0, 2},
-            {1, 2, 2},
-            {1, 2, 0},
-            {1, 0, 0},
-            {0, 1, 2},
-            {2, 1, 2},
-            {2, 1, 0},
-            {0, 1, 0},
-            {0, 0, 1},
-            {0, 2, 1},
-            {2, 2, 1},
-            {2, 0, 1}
-    };
-    private static final int[][] cornerPieces = {
-            {0, 0, 2},
-            {0, 2, 2},
-            {2, 2, 2},
-            {2, 0, 2},
-            {0, 0, 0},
-            {0, 2, 0},
-            {2, 2, 0},
-            {2, 0, 0}
-    };
-    private final int[][] keepFaces = {
-            {4, 5},
-            {1, 3},
-            {0, 2},
-    };
-    private final int[][] switchFaces = {
-            {0, 1, 2, 3, 0, 1, 2, 3},
-            {0, 4, 2, 5, 0, 4, 2, 5},
-            {1, 5, 3, 4, 1, 5, 3, 4},
-    };
-
     private static final int CONTROL_PANEL_WIDTH = SCREEN_WIDTH - CUBE_PANEL_WIDTH;
     private static final int CONTROL_PANEL_HEIGHT = SCREEN_HEIGHT;
     private static final int PANEL_X = CUBE_PANEL_WIDTH;
@@ -97,40 +59,67 @@ public class RubiksCubeSolver3D extends Application {
     private static final int TEXTS_Y = BUTTONS_Y + 43;
     private static final int LAYER1_BUTTON_WIDTH = 80;
     private static final int LAYER1_BUTTON_HEIGHT = 68;
+    private static final int SOLVER_BUTTON_HEIGHT = (LAYER1_BUTTON_HEIGHT - 4) / 3;
     private static final int COLOR_BUTTONS_SIZE = 26;
     private static final int MOVE_BUTTON_SIZE = 36;
+    private static final int ATLAS_CELL_SIZE = 256;
 
     private ArrayList<Button> buttons = new ArrayList<>();
     private Slider speedSlider;
     private Text speedSliderUnitText;
     private Label warningPopup = new Label();
+    private final ProgressBar tablesProgressBar = new ProgressBar(0);
+    private volatile boolean twoPhaseReady, optimalReady;
     private Label playedMovesPopup = new Label();
     private ScrollPane playedMovesScrollPane = new ScrollPane();
-    private Text playedMovesText = new Text();
+    private final MoveHistory moveHistory = new MoveHistory();
+    private final MoveHistoryView playedMovesView = new MoveHistoryView(moveHistory, "-fx-fill: #0012d3;\n" +
+            "-fx-font-size: 12pt;\n" +
+            "-fx-font-weight: bold;");
 
     private final Font fredokaOne = Font.loadFont(getClass().getResourceAsStream("/resources/fonts/FredokaOne-Regular.ttf"), 35);
     private final Font signikaRegular = Font.loadFont(getClass().getResourceAsStream("/resources/fonts/Signika-Regular.ttf"), 16);
-    private final AudioClip moveSound = new AudioClip(getClass().getResource("/resources/sounds/moveSound.mp3").toExternalForm());
-    private final ImageView activatedAudioButtonImage = new ImageView(new Image("/resources/images/activatedAudio.png"));
-    private final ImageView disactivatedAudioButtonImage = new ImageView(new Image("/resources/images/disactivatedAudio.png"));
+    private final Font signikaSmall = Font.font(signikaRegular.getFamily(), 12);
+    private AudioClip moveSound;
+    private double moveSoundVolume = 1;
+    private final ImageView activatedAudioButtonImage = new ImageView(new Image("/resources/images/activatedAudio.png", true));
+    private final ImageView disactivatedAudioButtonImage = new ImageView(new Image("/resources/images/disactivatedAudio.png", true));
+    private static final int AUDIO_BUTTON_SIZE = 50;
 
     private static double rotationDuration = 0.1;
     private static double rotationDelay = 0.1;
     private static final int SCRAMBLE_SIZE = 20;
+    private static final int SCRAMBLE_BUFFER_SIZE = 8;
+    private final ScrambleGenerator scrambleGenerator = new ScrambleGenerator();
+    private final ScrambleBuffer scrambleBuffer = new ScrambleBuffer(scrambleGenerator, SCRAMBLE_BUFFER_SIZE);
     private static boolean resetFlag = false;
 
-    private final PhongMaterial[] colors = setupColors();
-    private PhongMaterial selectedColor;
-    private Box[][][][] cube = setupCube();
-    private Box[][][][] fakeCube = cube;
+    private final Image[] colorImages = colorImages(ATLAS_CELL_SIZE);
+    private final PhongMaterial atlasMaterial = setupAtlasMaterial();
+    private int selectedColor;
+    private CubeState cubeState = new CubeState();
+    private final CubieMesh[][][] cube = setupCube(cubeState);
+    private OptimalSolver optimalSearch;
+    private CubeState kociembaSearch;
     private final String[] PREDEFINED_MOVES = new String[]{"L", "L'", "R", "R'", "U", "U'", "D", "D'", "F", "F'", "B", "B'", "M", "M'", "E", "E'", "S", "S'", "x", "x'", "y", "y'", "z", "z'"};
-    private ArrayList<String> solverMoves = new ArrayList<>();
-    private Timeline rotationsTimeline = new Timeline();
+    private final MoveAnimator moveAnimator = new MoveAnimator(new MoveAnimator.Turner() {
+        @Override
+        public Animation animateLayer(String layerMove, double seconds) {
+            return layerRotation(layerMove, seconds);
+        }
+
+        @Override
+        public void applyMove(String move) {
+            cubeState.applyMove(move);
+            updateCubeColors(-1, -1);
+        }
+    }, () -> rotationDuration, () -> rotationDelay);
     private Group cubeGroup = new Group();
     private final Pane cubePanel = setupCubePanel();
     private final Pane controlPanel = setupControlPanel();
     private final Group group = new Group();
     private Scene scene = setupScene();
+    private final RenderMetrics renderMetrics = new RenderMetrics(scene, cubeGroup);
     private final PerspectiveCamera camera = new PerspectiveCamera();
 
     private Rotate xRotate = new Rotate(20, Rotate.X_AXIS);
@@ -143,17 +132,37 @@ public class RubiksCubeSolver3D extends Application {
     private final int ANGLE_BY_KEY = 10;
 
     private int countX, countY, countZ, countFace;
-    private int stopCount;
 
     @Override
     public void start(Stage stage) {
+        StartupLog.phase("fields initialized");
+        prepareSolverTables();
+        loadMoveSound();
         addCubeToCubeGroup();
         cubeGroup.getTransforms().addAll(xRotate, yRotate, zRotate);
         cubeGroup.setTranslateX((double) (CUBE_PANEL_WIDTH / 2) + 25);
         cubeGroup.setTranslateY((double) (CUBE_PANEL_HEIGHT / 2) - 15);
 
         cubeMouseControl();
+        moveAnimator.setMetrics(renderMetrics);
+        setTextPredefinedStyle(renderMetrics.getOverlay());
+        renderMetrics.getOverlay().setStyle("-fx-fill: white;");
+        renderMetrics.getOverlay().setTranslateX(20);
+        renderMetrics.getOverlay().setTranslateY(40);
+        cubePanel.getChildren().add(renderMetrics.getOverlay());
         stage.addEventHandler(KeyEvent.KEY_PRESSED, event -> {
+            if (event.isShortcutDown() && event.getCode() == KeyCode.C) {
+                copyFaceletString();
+                return;
+            }
+            if (event.isShortcutDown() && event.getCode() == KeyCode.V) {
+                pasteFaceletString();
+                return;
+            }
+            if (event.getCode() == KeyCode.F3) {
+                renderMetrics.setEnabled(!renderMetrics.isEnabled());
+                return;
+            }
             Rotate rotate = new Rotate();
             switch (event.getCode()) {
                 case S:
@@ -200,28 +209,65 @@ public class RubiksCubeSolver3D extends Application {
         stage.setScene(scene);
         stage.show();
         manageWindowSizes(stage);
+        StartupLog.phase("window shown");
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                StartupLog.phase("first frame");
+                stop();
+            }
+        }.start();
     }
 
-    private Image[] colorImages() {
+    private Image[] colorImages(double size) {
         Image[] colorImages = new Image[7];
-        colorImages[0] = new Image("resources/images/colors/white.jpg");
-        colorImages[1] = new Image("resources/images/colors/red.jpg");
-        colorImages[2] = new Image("resources/images/colors/yellow.jpg");
-        colorImages[3] = new Image("resources/images/colors/orange.jpg");
-        colorImages[4] = new Image("resources/images/colors/blue.jpg");
-        colorImages[5] = new Image("resources/images/colors/green.jpg");
-        colorImages[6] = new Image("resources/images/colors/black.jpg");
+        colorImages[0] = new Image("resources/images/colors/white.jpg", size, size, false, true, true);
+        colorImages[1] = new Image("resources/images/colors/red.jpg", size, size, false, true, true);
+        colorImages[2] = new Image("resources/images/colors/yellow.jpg", size, size, false, true, true);
+        colorImages[3] = new Image("resources/images/colors/orange.jpg", size, size, false, true, true);
+        colorImages[4] = new Image("resources/images/colors/blue.jpg", size, size, false, true, true);
+        colorImages[5] = new Image("resources/images/colors/green.jpg", size, size, false, true, true);
+        colorImages[6] = new Image("resources/images/colors/black.jpg", size, size, false, true, true);
         return colorImages;
     }
 
-    private PhongMaterial[] setupColors() {
-        PhongMaterial[] colors = new PhongMaterial[7];
-        Image[] colorImages = colorImages();
-        for (int count = 0; count < 7; count ++) {
-            colors[count] = new PhongMaterial();
-            colors[count].setDiffuseMap(colorImages[count]);
-        }
-        return colors;
+    /**
+     * Plain grey until every color image has loaded.
+     */
+    private PhongMaterial setupAtlasMaterial() {
+        PhongMaterial atlasMaterial = new PhongMaterial(Color.GREY);
+        Runnable applyAtlas = () -> {
+            for (Image colorImage : colorImages)
+                if (colorImage.getProgress() < 1 || colorImage.isError())
+                    return;
+            if (atlasMaterial.getDiffuseMap() == null) {
+                atlasMaterial.setDiffuseColor(Color.WHITE);
+                atlasMaterial.setDiffuseMap(CubieMesh.createAtlas(colorImages));
+                StartupLog.phase("cube textures ready");
+            }
+        };
+        for (Image image : colorImages)
+            image.progressProperty().addListener((observable, oldValue, newValue) -> applyAtlas.run());
+        applyAtlas.run();
+        return atlasMaterial;
+    }
+
+    private void loadMoveSound() {
+        Thread thread = new Thread(() -> {
+            AudioClip sound = new AudioClip(getClass().getResource("/resources/sounds/moveSound.mp3").toExternalForm());
+            Platform.runLater(() -> {
+                sound.setVolume(moveSoundVolume);
+                moveSound = sound;
+                StartupLog.phase("move sound ready");
+            });
+        }, "Move sound");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void playMoveSound() {
+        if (moveSound != null)
+            moveSound.play();
     }
 
     private String getColorByNumber(int number) {
@@ -252,71 +298,36 @@ public class RubiksCubeSolver3D extends Application {
         return color;
     }
 
-    private Box[][][][] setupCube() {
-        Box[][][][] cube = new Box[CUBE_DIMENSION][CUBE_DIMENSION][CUBE_DIMENSION][FACES];
-        for (countX = 0; countX < CUBE_DIMENSION; countX ++)
-            for (countY = 0; countY < CUBE_DIMENSION; countY ++)
-                for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++)
-                    for (countFace = 0; countFace < FACES; countFace ++) {
-                        cube[countX][countY][countZ][countFace] = new Box(CUBE_SIDE, CUBE_SIDE, CUBE_SIDE);
-                        cube[countX][countY][countZ][countFace].setTranslateX(- CUBE_SIDE + CUBE_SIDE * countX);
-                        cube[countX][countY][countZ][countFace].setTranslateY(CUBE_SIDE - CUBE_SIDE * countY);
-                        cube[countX][countY][countZ][countFace].setTranslateZ(CUBE_SIDE - CUBE_SIDE * countZ);
-                        cube[countX][countY][countZ][countFace].setMaterial(colors[6]);
-                    }
-
+    private CubieMesh[][][] setupCube(CubeState state) {
+        CubieMesh[][][] cube = new CubieMesh[CUBE_DIMENSION][CUBE_DIMENSION][CUBE_DIMENSION];
         for (countX = 0; countX < CUBE_DIMENSION; countX ++)
             for (countY = 0; countY < CUBE_DIMENSION; countY ++)
                 for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++) {
-                    switch (countX) {
-                        case 0:
-                            cube[countX][countY][countZ][4].setMaterial(colors[4]);
-                            cube[countX][countY][countZ][4].setTranslateX(cube[countX][countY][countZ][4].getTranslateX() - 1);
-                            cube[countX][countY][countZ][5].setTranslateX(cube[countX][countY][countZ][5].getTranslateX() + 0.1);
-                            break;
-                        case 2:
-                            cube[countX][countY][countZ][5].setMaterial(colors[5]);
-                            cube[countX][countY][countZ][5].setTranslateX(cube[countX][countY][countZ][5].getTranslateX() + 1);
-                            cube[countX][countY][countZ][4].setTranslateX(cube[countX][countY][countZ][4].getTranslateX() - 0.1);
-                        default:
-                            cube[countX][countY][countZ][4].setTranslateX(cube[countX][countY][countZ][4].getTranslateX() - 0.1);
-                            cube[countX][countY][countZ][5].setTranslateX(cube[countX][countY][countZ][5].getTranslateX() + 0.1);
-                    }
-
-                    switch (countY) {
-                        case 0:
-                            cube[countX][countY][countZ][3].setMaterial(colors[3]);
-                            cube[countX][countY][countZ][3].setTranslateY(cube[countX][countY][countZ][3].getTranslateY() + 1);
-                            cube[countX][countY][countZ][1].setTranslateY(cube[countX][countY][countZ][1].getTranslateY() - 0.1);
-                            break;
-                        case 2:
-                            cube[countX][countY][countZ][1].setMaterial(colors[1]);
-                            cube[countX][countY][countZ][1].setTranslateY(cube[countX][countY][countZ][1].getTranslateY() - 1);
-                            cube[countX][countY][countZ][3].setTranslateY(cube[countX][countY][countZ][3].getTranslateY() + 0.1);
-                        default:
-                            cube[countX][countY][countZ][3].setTranslateY(cube[countX][countY][countZ][3].getTranslateY() + 0.1);
-                            cube[countX][countY][countZ][1].setTranslateY(cube[countX][countY][countZ][1].getTranslateY() - 0.1);
-                    }
-
-                    switch (countZ) {
-                        case 0:
-                            cube[countX][countY][countZ][2].setMaterial(colors[2]);
-                            cube[countX][countY][countZ][2].setTranslateZ(cube[countX][countY][countZ][2].getTranslateZ() + 1);
-                            cube[countX][countY][countZ][0].setTranslateZ(cube[countX][countY][countZ][0].getTranslateZ() - 0.1);
-                            break;
-                        case 2:
-                            cube[countX][countY][countZ][0].setMaterial(colors[0]);
-                            cube[countX][countY][countZ][0].setTranslateZ(cube[countX][countY][countZ][0].getTranslateZ() - 1);
-                            cube[countX][countY][countZ][2].setTranslateZ(cube[countX][countY][countZ][2].getTranslateZ() + 0.1);
-                        default:
-                            cube[countX][countY][countZ][0].setTranslateZ(cube[countX][countY][countZ][0].getTranslateZ() - 0.1);
-                            cube[countX][countY][countZ][2].setTranslateZ(cube[countX][countY][countZ][2].getTranslateZ() + 0.1);
-                    }
+                    cube[countX][countY][countZ] = new CubieMesh(CUBE_SIDE, FACES + 1, atlasMaterial,
+                            - CUBE_SIDE + CUBE_SIDE * countX, CUBE_SIDE - CUBE_SIDE * countY, CUBE_SIDE - CUBE_SIDE * countZ);
+                    for (countFace = 0; countFace < FACES; countFace ++)
+                        cube[countX][countY][countZ].setColor(countFace, state.get(countX, countY, countZ, countFace));
                 }
-
         return cube;
     }
 
+    /**
+     * Shows cubeState on the cubies of one layer (refCount is the axis, refValue the layer, -1 for all cubies)
+     * and takes back the rotation they were animated with.
+     */
+    private void updateCubeColors(int refCount, int refValue) {
+        int[] countXYZ = new int[CUBE_DIMENSION];
+        for (countXYZ[0] = 0; countXYZ[0] < CUBE_DIMENSION; countXYZ[0] ++)
+            for (countXYZ[1] = 0; countXYZ[1] < CUBE_DIMENSION; countXYZ[1] ++)
+                for (countXYZ[2] = 0; countXYZ[2] < CUBE_DIMENSION; countXYZ[2] ++)
+                    if (refCount == -1 || countXYZ[refCount] == refValue) {
+                        CubieMesh cubie = cube[countXYZ[0]][countXYZ[1]][countXYZ[2]];
+                        cubie.getLayerRotate().setAngle(0);
+                        for (countFace = 0; countFace < FACES; countFace ++)
+                            cubie.setColor(countFace, cubeState.get(countXYZ[0], countXYZ[1], countXYZ[2], countFace));
+                    }
+    }
+
     private Pane setupCubePanel() {
         Pane panel = new Pane();
         panel.setPrefSize(CUBE_PANEL_WIDTH, CUBE_PANEL_HEIGHT);
@@ -332,18 +343,20 @@ public class RubiksCubeSolver3D extends Application {
         Button audioButton = new Button("", activatedAudioButtonImage);
         audioButton.setStyle("-fx-background-color: transparent;\n" +
                 "-fx-border-color: transparent;");
-        activatedAudioButtonImage.setFitHeight(50);
+        activatedAudioButtonImage.setFitHeight(AUDIO_BUTTON_SIZE);
         activatedAudioButtonImage.setPreserveRatio(true);
-        disactivatedAudioButtonImage.setFitHeight(50);
+        disactivatedAudioButtonImage.setFitHeight(AUDIO_BUTTON_SIZE);
         disactivatedAudioButtonImage.setPreserveRatio(true);
-        audioButton.setTranslateY(authorText.getTranslateY() - (activatedAudioButtonImage.getBoundsInLocal().getHeight() / 2));
+        audioButton.setTranslateY(authorText.getTranslateY() - (AUDIO_BUTTON_SIZE / 2));
         Tooltip audioButtonTooltip = new Tooltip("Mute audio.");
         audioButtonTooltip.setFont(new Font(signikaRegular.getSize()));
         audioButtonTooltip.setStyle("-fx-font-size: 10pt;");
         audioButton.setTooltip(audioButtonTooltip);
         AtomicInteger countAudio = new AtomicInteger();
         audioButton.setOnAction(event -> {
-            moveSound.setVolume(countAudio.intValue() % 2);
+            moveSoundVolume = countAudio.intValue() % 2;
+            if (moveSound != null)
+                moveSound.setVolume(moveSoundVolume);
             if ((countAudio.intValue() % 2) == 0) {
                 audioButton.setGraphic(disactivatedAudioButtonImage);
                 audioButtonTooltip.setText("Active audio.");
@@ -407,22 +420,37 @@ public class RubiksCubeSolver3D extends Application {
 
         Button scrambleButton = new Button("Scramble");
         buttons.add(scrambleButton);
-        tooltips.add(new Tooltip("Scramble Rubik's cube using " + SCRAMBLE_SIZE + " randomized moves."));
+        tooltips.add(new Tooltip("Scramble Rubik's cube into a random state (using " + SCRAMBLE_SIZE + " randomized moves while the solver tables load)."));
         scrambleButton.setPrefSize(LAYER1_BUTTON_WIDTH, LAYER1_BUTTON_HEIGHT);
         scrambleButton.setTranslateX(resetButton.getTranslateX() + LAYER1_BUTTON_WIDTH + 8);
         scrambleButton.setTranslateY(BUTTONS_Y);
         scrambleButton.setOnAction(event -> scramble());
 
-        Button solverButton = new Button("Fridrich\n(CFOP)\nSolver");
+        Button solverButton = new Button("Fridrich");
         buttons.add(solverButton);
         tooltips.add(new Tooltip("Solve Rubik's cube using the Fridrich (CFOP) method."));
-        solverButton.setPrefSize(LAYER1_BUTTON_WIDTH, LAYER1_BUTTON_HEIGHT);
+        solverButton.setPrefSize(LAYER1_BUTTON_WIDTH, SOLVER_BUTTON_HEIGHT);
         solverButton.setTranslateX(scrambleButton.getTranslateX() + LAYER1_BUTTON_WIDTH + 8);
         solverButton.setTranslateY(BUTTONS_Y);
         solverButton.setOnAction(event -> solver());
 
+        Button kociembaButton = new Button("Kociemba");
+        buttons.add(kociembaButton);
+        tooltips.add(new Tooltip("Solve Rubik's cube in about 20 moves using Kociemba's two-phase algorithm."));
+        kociembaButton.setPrefSize(LAYER1_BUTTON_WIDTH, SOLVER_BUTTON_HEIGHT);
+        kociembaButton.setTranslateX(solverButton.getTranslateX());
+        kociembaButton.setTranslateY(solverButton.getTranslateY() + SOLVER_BUTTON_HEIGHT + 2);
+        kociembaButton.setOnAction(event -> kociembaSolver());
+
+        Button optimalButton = new Button("Optimal");
+        buttons.add(optimalButton);
+        tooltips.add(new Tooltip("Search for the shortest possible solution (IDA* with pattern databases, may take minutes)."));
+        optimalButton.setPrefSize(LAYER1_BUTTON_WIDTH, SOLVER_BUTTON_HEIGHT);
+        optimalButton.setTranslateX(solverButton.getTranslateX());
+        optimalButton.setTranslateY(kociembaButton.getTranslateY() + SOLVER_BUTTON_HEIGHT + 2);
+        optimalButton.setOnAction(event -> optimalSolver());
+
         Button[] colorButtons = new Button[FACES];
-        Image[] colorImages = colorImages();
         for (int count = 0; count < FACES; count ++) {
             ImageView colorImageView = new ImageView(colorImages[count]);
             colorImageView.setFitWidth(COLOR_BUTTONS_SIZE);
@@ -433,7 +461,7 @@ public class RubiksCubeSolver3D extends Application {
                 for (int count2 = 0; count2 < FACES; count2 ++)
                     colorButtons[count2].setDisable(false);
                 colorButtons[finalCount].setDisable(true);
-                selectedColor = colors[finalCount];
+                selectedColor = finalCount;
                 updateColorCube();
             });
             buttons.add(colorButtons[count]);
@@ -457,34 +485,8 @@ public class RubiksCubeSolver3D extends Application {
             int finalCount = count;
             moveButtons[count].setOnAction(event -> {
                 playMoves(new String[]{PREDEFINED_MOVES[finalCount]});
-
-                if (playedMovesText.getText().equals(""))
-                    playedMovesText.setText("User move (1):\n");
-                else {
-                    for (int count2 = playedMovesText.getText().length() - 1; count2 > 0; count2 --)
-                        if (playedMovesText.getText().charAt(count2) == '(') {
-                            if (playedMovesText.getText().startsWith("User move", count2 - 10) || playedMovesText.getText().startsWith("User moves", count2 - 11)) {
-                                int count3 = count2 + 1, totalMoves;
-                                String numberString = new String();
-                                while (playedMovesText.getText().charAt(count3) != ')') {
-                                    numberString += playedMovesText.getText().charAt(count3);
-                                    count3 ++;
-                                }
-                                totalMoves = Integer.parseInt(numberString) + 1;
-                                if (totalMoves == 2)
-                                    playedMovesText.setText(playedMovesText.getText().substring(0, 9) + 's' + playedMovesText.getText().substring(9, count2 + 1) + totalMoves + playedMovesText.getText().substring(count3));
-                                else if (totalMoves > 2)
-                                    playedMovesText.setText(playedMovesText.getText().substring(0, count2 + 1) + totalMoves + playedMovesText.getText().substring(count3));
-                                playedMovesText.setText(playedMovesText.getText() + ", ");
-                            }
-                            else
-                                playedMovesText.setText("User move (1):\n");
-                            break;
-                        }
-                }
-                playedMovesText.setText(playedMovesText.getText() + PREDEFINED_MOVES[finalCount]);
-                playedMovesPopup.setVisible(true);
-                playedMovesScrollPane.setVisible(true);
+                moveHistory.add(MoveHistory.USER, new String[]{PREDEFINED_MOVES[finalCount]});
+                showMoveHistory();
             });
             buttons.add(moveButtons[count]);
             tooltips.add(new Tooltip("Make move " + PREDEFINED_MOVES[count] + "."));
@@ -548,6 +550,17 @@ public class RubiksCubeSolver3D extends Application {
             setButtonPredefinedStyle(buttons.get(count), tooltips.get(count));
             panel.getChildren().add(buttons.get(count));
         }
+        solverButton.setFont(signikaSmall);
+        kociembaButton.setFont(signikaSmall);
+        optimalButton.setFont(signikaSmall);
+
+        tablesProgressBar.setPrefSize(LAYER1_BUTTON_WIDTH, 8);
+        tablesProgressBar.setTranslateX(solverButton.getTranslateX());
+        tablesProgressBar.setTranslateY(BUTTONS_Y + LAYER1_BUTTON_HEIGHT + 3);
+        Tooltip tablesProgressTooltip = new Tooltip("Preparing the Kociemba and optimal solver tables, the Fridrich solver is used meanwhile.");
+        tablesProgressTooltip.setStyle("-fx-font-size: 10pt;");
+        tablesProgressBar.setTooltip(tablesProgressTooltip);
+        panel.getChildren().add(tablesProgressBar);
 
         playedMovesPopup.setPrefSize(288, 160);
         playedMovesPopup.setTranslateX((CONTROL_PANEL_WIDTH - playedMovesPopup.getPrefWidth()) / 2);
@@ -557,18 +570,16 @@ public class RubiksCubeSolver3D extends Application {
         playedMovesPopup.setVisible(false);
         panel.getChildren().add(playedMovesPopup);
 
-        playedMovesText.setStyle("-fx-fill: #0012d3;\n" +
-                "-fx-font-size: 12pt;\n" +
-                "-fx-font-weight: bold;\n" +
-                "-fx-line-spacing: -5;");
-        playedMovesText.setTranslateY(-5);
-        playedMovesText.setWrappingWidth(playedMovesPopup.getPrefWidth() - 22);
+        playedMovesView.setLineSpacing(-5);
+        playedMovesView.setTranslateY(-5);
+        playedMovesView.setPrefWidth(playedMovesPopup.getPrefWidth() - 22);
+        playedMovesView.setMaxWidth(playedMovesView.getPrefWidth());
 
         playedMovesScrollPane.setPrefSize(282, 65);
         playedMovesScrollPane.setTranslateX(playedMovesPopup.getTranslateX() + 2);
         playedMovesScrollPane.setTranslateY(playedMovesPopup.getTranslateY() + 85);
         playedMovesScrollPane.setStyle("-fx-padding: 0 5;");
-        playedMovesScrollPane.setContent(playedMovesText);
+        playedMovesScrollPane.setContent(playedMovesView);
         playedMovesScrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
         playedMovesScrollPane.setVisible(false);
         panel.getChildren().add(playedMovesScrollPane);
@@ -593,6 +604,7 @@ public class RubiksCubeSolver3D extends Application {
     }
 
     private Scene setupScene() {
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
         if (screenSize.getWidth() > screenSize.getHeight())
             return new Scene(group, screenSize.getHeight() / 1080 * SCREEN_WIDTH, SCREEN_HEIGHT * screenSize.getHeight() / 1080, true);
         else
@@ -631,22 +643,21 @@ public class RubiksCubeSolver3D extends Application {
         text.setFont(fredokaOne);
     }
 
-    private void layerRotation(String move) {
-        Group moveGroup = new Group();
-        RotateTransition rotation = new RotateTransition(Duration.seconds(rotationDuration), moveGroup);
-        int refCount = -1, refValue = -1;
+    private Animation layerRotation(String move, double seconds) {
+        Point3D axis = null;
+        int refCount = -1, refValue = -1, turns = move.endsWith("2") ? 2 : 1, byAngle = 0;
 
         switch (move.charAt(0)) {
             case 'v':
-                rotation.setAxis(Rotate.X_AXIS);
+                axis = Rotate.X_AXIS;
                 refCount = 0;
                 break;
             case 'h':
-                rotation.setAxis(Rotate.Y_AXIS);
+                axis = Rotate.Y_AXIS;
                 refCount = 1;
                 break;
             case 'd':
-                rotation.setAxis(Rotate.Z_AXIS);
+                axis = Rotate.Z_AXIS;
                 refCount = 2;
                 break;
         }
@@ -670,286 +681,80 @@ public class RubiksCubeSolver3D extends Application {
             case 'r':
             case 't':
             case 'a':
-                rotation.setByAngle(-90);
+                byAngle = -90 * turns;
                 break;
             case 'l':
             case 'b':
             case 'c':
-                rotation.setByAngle(90);
+                byAngle = 90 * turns;
                 break;
         }
 
-        moveGroup = addToMoveGroup(moveGroup, refCount, refValue);
-        cubeGroup.getChildren().add(moveGroup);
-
-        rotation.play();
-        rotation.setOnFinished(finish -> {
-            if (!resetFlag) {
-                cube = recreateCube(cube, move);
-                cubeGroup.getChildren().clear();
-                addCubeToCubeGroup();
-            }
-        });
-    }
-
-    private Group addToMoveGroup(Group moveGroup, int refCount, int refValue) {
+        Timeline rotation = new Timeline();
         int[] countXYZ = new int[CUBE_DIMENSION];
         for (countXYZ[0] = 0; countXYZ[0] < CUBE_DIMENSION; countXYZ[0] ++)
             for (countXYZ[1] = 0; countXYZ[1] < CUBE_DIMENSION; countXYZ[1] ++)
                 for (countXYZ[2] = 0; countXYZ[2] < CUBE_DIMENSION; countXYZ[2] ++)
-                    for (countFace = 0; countFace < FACES; countFace ++)
-                        if(countXYZ[refCount] == refValue) moveGroup.getChildren().add(cube[countXYZ[0]][countXYZ[1]][countXYZ[2]][countFace]);
-        return moveGroup;
-    }
-
-    private Box[][][][] recreateCube(Box[][][][] cube, String move) {
-        Box[][][][] newCube = new Box[CUBE_DIMENSION][CUBE_DIMENSION][CUBE_DIMENSION][FACES];
-        newCube = cloneCube(cube, newCube);
-
-        int count, count2, count3, count4;
-        int[] switchCoords = {0, 1, 2, 2, 2, 2, 2, 1, 0, 0, 0, 0, 0, 1, 2, 2, 2, 2, 2, 1, 0, 0, 0, 0};
-        int[] keepCoords = {0, 1, 2, 2, 2, 1, 0, 0, 0, 1, 2, 2, 2, 1, 0, 0};
-
-        int refValue = -1;
-        switch (move.charAt(1)) {
-            case 'l':
-            case 'b':
-                refValue = 0;
-                break;
-            case 'c':
-                refValue = 1;
-                break;
-            case 't':
-            case 'r':
-            case 'f':
-                refValue = 2;
-                break;
-        }
+                    if (countXYZ[refCount] == refValue) {
+                        Rotate layerRotate = cube[countXYZ[0]][countXYZ[1]][countXYZ[2]].getLayerRotate();
+                        layerRotate.setAxis(axis);
+                        layerRotate.setAngle(0);
+                        rotation.getKeyFrames().add(new KeyFrame(Duration.seconds(seconds),
+                                new KeyValue(layerRotate.angleProperty(), byAngle, Interpolator.EASE_BOTH)));
+                    }
 
-        switch (move.charAt(2)) {
-            case 'l':
-                for (count = 0, count3 = 4; count3 < 8; count3 ++) {
-                    count4 = count3 - 1;
-                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
-                        newCube[switchCoords[6 + count]][refValue][switchCoords[3 + count]][switchFaces[1][count3]].setMaterial(cube[switchCoords[3 + count]][refValue][switchCoords[count]][switchFaces[1][count4]].getMaterial());
-                }
-                for (count = 0; count < 8; count ++) {
-                    for (count2 = 0; count2 < 2; count2 ++)
-                        newCube[keepCoords[count]][refValue][keepCoords[6 + count]][keepFaces[1][count2]].setMaterial(cube[keepCoords[6 + count]][refValue][keepCoords[4 + count]][keepFaces[1][count2]].getMaterial());
-                }
-                break;
-            case 'r':
-                for (count = 0, count3 = 4; count3 > 0; count3 --) {
-                    count4 = count3 + 1;
-                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
-                        newCube[switchCoords[count]][refValue][switchCoords[3 + count]][switchFaces[1][count3]].setMaterial(cube[switchCoords[9 + count]][refValue][switchCoords[count]][switchFaces[1][count4]].getMaterial());
-                }
-                for (count = 0; count < 8; count ++) {
-                    for (count2 = 0; count2 < 2; count2 ++)
-                        newCube[keepCoords[count]][refValue][keepCoords[6 + count]][keepFaces[1][count2]].setMaterial(cube[keepCoords[2 + count]][refValue][keepCoords[count]][keepFaces[1][count2]].getMaterial());
-                }
-                break;
-            case 't':
-                for (count = 0, count3 = 4; count3 < 8; count3 ++) {
-                    count4 = count3 - 1;
-                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
-                        newCube[refValue][switchCoords[count]][switchCoords[3 + count]][switchFaces[0][count3]].setMaterial(cube[refValue][switchCoords[9 + count]][switchCoords[count]][switchFaces[0][count4]].getMaterial());
-                }
-                for (count = 0; count < 8; count ++) {
-                    for (count2 = 0; count2 < 2; count2 ++)
-                        newCube[refValue][keepCoords[count]][keepCoords[6 + count]][keepFaces[0][count2]].setMaterial(cube[refValue][keepCoords[2 + count]][keepCoords[count]][keepFaces[0][count2]].getMaterial());
-                }
-                break;
-            case 'b':
-                for (count = 0, count3 = 4; count3 > 0; count3 --) {
-                    count4 = count3 + 1;
-                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
-                        newCube[refValue][switchCoords[6 + count]][switchCoords[3 + count]][switchFaces[0][count3]].setMaterial(cube[refValue][switchCoords[3 + count]][switchCoords[count]][switchFaces[0][count4]].getMaterial());
-                }
-                for (count = 0; count < 8; count ++) {
-                    for (count2 = 0; count2 < 2; count2 ++)
-                        newCube[refValue][keepCoords[count]][keepCoords[6 + count]][keepFaces[0][count2]].setMaterial(cube[refValue][keepCoords[6 + count]][keepCoords[4 + count]][keepFaces[0][count2]].getMaterial());
-                }
-                break;
-            case 'c':
-                for (count = 0, count3 = 4; count3 < 8; count3 ++) {
-                    count4 = count3 - 1;
-                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
-                        newCube[switchCoords[count]][switchCoords[3 + count]][refValue][switchFaces[2][count3]].setMaterial(cube[switchCoords[9 + count]][switchCoords[count]][refValue][switchFaces[2][count4]].getMaterial());
-                }
-                for (count = 0; count < 8; count ++) {
-                    for (count2 = 0; count2 < 2; count2 ++)
-                        newCube[keepCoords[6 + count]][keepCoords[count]][refValue][keepFaces[2][count2]].setMaterial(cube[keepCoords[4 + count]][keepCoords[6 + count]][refValue][keepFaces[2][count2]].getMaterial());
-                }
-                break;
-            case 'a':
-                for (count = 0, count3 = 4; count3 > 0; count3 --) {
-                    count4 = count3 + 1;
-                    for (count2 = 0; count2 < CUBE_DIMENSION; count2 ++, count ++)
-                        newCube[switchCoords[6 + count]][switchCoords[3 + count]][refValue][switchFaces[2][count3]].setMaterial(cube[switchCoords[3 + count]][switchCoords[count]][refValue][switchFaces[2][count4]].getMaterial());
-                }
-                for (count = 0; count < 8; count ++) {
-                    for (count2 = 0; count2 < 2; count2 ++)
-                        newCube[keepCoords[6 + count]][keepCoords[count]][refValue][keepFaces[2][count2]].setMaterial(cube[keepCoords[count]][keepCoords[2 + count]][refValue][keepFaces[2][count2]].getMaterial());
-                }
-                break;
-        }
-        return newCube;
+        int finalRefCount = refCount, finalRefValue = refValue;
+        rotation.setOnFinished(finish -> {
+            if (!resetFlag) {
+                cubeState.applyMove(move);
+                updateCubeColors(finalRefCount, finalRefValue);
+            }
+        });
+        playMoveSound();
+        return rotation;
     }
 
     private void updateColorCube() {
+        for (countX = 0; countX < CUBE_DIMENSION; countX ++)
+            for (countY = 0; countY < CUBE_DIMENSION; countY ++)
+                for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++) {
+                    final int finalCountX = countX;
+                    final int finalCountY = countY;
+                    final int finalCountZ = countZ;
+                    cube[countX][countY][countZ].setOnMouseClicked(event -> {
+                        int face = CubieMesh.faceOfTriangle(event.getPickResult().getIntersectedFace());
+                        if (face < 0 || CubeState.getFaceletIndex(finalCountX, finalCountY, finalCountZ, face) < 0)
+                            return;
+                        cube[finalCountX][finalCountY][finalCountZ].setColor(face, selectedColor);
+                        cubeState.set(finalCountX, finalCountY, finalCountZ, face, selectedColor);
+                        fieldsQuantity();
+                        if (!warningPopup.isVisible())
+                            possibleCube();
+                    });
+                }
+    }
+
+    private void stopColoringCube() {
         for (countX = 0; countX < CUBE_DIMENSION; countX ++)
             for (countY = 0; countY < CUBE_DIMENSION; countY ++)
                 for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++)
-                    for (countFace = 0; countFace < FACES; countFace ++) {
-                        final int finalCountX = countX;
-                        final int finalCountY = countY;
-                        final int finalCountZ = countZ;
-                        final int finalCountFace = countFace;
-                        cube[countX][countY][countZ][countFace].setOnMouseClicked(event -> {
-                            cube[finalCountX][finalCountY][finalCountZ][finalCountFace].setMaterial(selectedColor);
-                            fakeCube[finalCountX][finalCountY][finalCountZ][finalCountFace].setMaterial(selectedColor);
-                            fieldsQuantity();
-                            if (!warningPopup.isVisible())
-                                possibleCube();
-                        });
-                    }
+                    cube[countX][countY][countZ].setOnMouseClicked(null);
     }
 
     private void playMoves(String[] moves) {
-        rotationsTimeline.getKeyFrames().clear();
-        KeyFrame[] movements = new KeyFrame[moves.length];
-        for (int count = 0; count < moves.length; count ++) {
-            int finalCount = count;
-            movements[finalCount] = new KeyFrame(Duration.seconds((rotationDuration + rotationDelay) * count), event -> {
-                for (int count2 = 0; count2 < 3; count2 ++) {
-                    String translatedMove = translateMove(moves[finalCount])[count2];
-                    if (translatedMove != null) {
-                        layerRotation(translatedMove);
-                        moveSound.play();
-                    }
-                }
-            });
-            rotationsTimeline.getKeyFrames().add(movements[finalCount]);
-        }
-        rotationsTimeline.getKeyFrames().add(new KeyFrame(Duration.seconds((rotationDuration + rotationDelay) * moves.length), event -> fakeCube = cloneCube(cube, fakeCube)));
-        Platform.runLater(rotationsTimeline::play);
+        stopColoringCube();
         setDisableControls(true);
-        rotationsTimeline.setOnFinished(event -> setDisableControls(false));
-    }
-
-    private String[] translateMove(String singmasterMove) {
-        String[] myMove = new String[3];
-        switch (singmasterMove) {
-            case "U":
-                myMove[0] = "htl";
-                break;
-            case "U'":
-                myMove[0] = "htr";
-                break;
-            case "E":
-                myMove[0] = "hcr";
-                break;
-            case "E'":
-                myMove[0] = "hcl";
-                break;
-            case "D":
-                myMove[0] = "hbr";
-                break;
-            case "D'":
-                myMove[0] = "hbl";
-                break;
-            case "L":
-                myMove[0] = "vlb";
-                break;
-            case "L'":
-                myMove[0] = "vlt";
-                break;
-            case "M":
-                myMove[0] = "vcb";
-                break;
-            case "M'":
-                myMove[0] = "vct";
-                break;
-            case "R":
-                myMove[0] = "vrt";
-                break;
-            case "R'":
-                myMove[0] = "vrb";
-                break;
-            case "F":
-                myMove[0] = "dfc";
-                break;
-            case "F'":
-                myMove[0] = "dfa";
-                break;
-            case "S":
-                myMove[0] = "dcc";
-                break;
-            case "S'":
-                myMove[0] = "dca";
-                break;
-            case "B":
-                myMove[0] = "dba";
-                break;
-            case "B'":
-                myMove[0] = "dbc";
-                break;
-            case "x":
-                myMove[0] = "vlt";
-                myMove[1] = "vct";
-                myMove[2] = "vrt";
-                break;
-            case "x'":
-                myMove[0] = "vlb";
-                myMove[1] = "vcb";
-                myMove[2] = "vrb";
-                break;
-            case "y":
-                myMove[0] = "htl";
-                myMove[1] = "hcl";
-                myMove[2] = "hbl";
-                break;
-            case "y'":
-                myMove[0] = "htr";
-                myMove[1] = "hcr";
-                myMove[2] = "hbr";
-                break;
-            case "z":
-                myMove[0] = "dfc";
-                myMove[1] = "dcc";
-                myMove[2] = "dbc";
-                break;
-            case "z'":
-                myMove[0] = "dfa";
-                myMove[1] = "dca";
-                myMove[2] = "dba";
-                break;
-        }
-        return myMove;
+        moveAnimator.play(moves, () -> setDisableControls(false));
     }
 
     private void fieldsQuantity() {
-        String warningString = new String();
-        int[] fieldsQuantity = new int[colors.length - 1];
-        for (countX = 0; countX < CUBE_DIMENSION; countX ++)
-            for (countY = 0; countY < CUBE_DIMENSION; countY ++)
-                for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++)
-                    for (countFace = 0; countFace < FACES; countFace ++) {
-                        PhongMaterial material = (PhongMaterial) cube[countX][countY][countZ][countFace].getMaterial();
-                        for (int count = 0; count < fieldsQuantity.length; count ++)
-                            if (material == colors[count])
-                                fieldsQuantity[count] ++;
-                    }
-        for (int count = 0; count < fieldsQuantity.length; count ++)
-            if (fieldsQuantity[count] != CUBE_DIMENSION * CUBE_DIMENSION) {
-                warningString += fieldsQuantity[count] + " " + getColorByNumber(count) + ", ";
-            }
-        for (int count = warningString.length() - 3; count >= 0; count --)
-            if (warningString.charAt(count) == ',') {
-                warningString = warningString.substring(0, count) + " and " + warningString.substring(count + 2, warningString.length() - 2);
-                break;
-            }
+        ArrayList<String> wrongColors = new ArrayList<>();
+        for (int count = 0; count < FACES; count ++)
+            if (cubeState.getColorCount(count) != CUBE_DIMENSION * CUBE_DIMENSION)
+                wrongColors.add(cubeState.getColorCount(count) + " " + getColorByNumber(count));
+        String warningString = String.join(", ", wrongColors);
+        if (wrongColors.size() > 1)
+            warningString = String.join(", ", wrongColors.subList(0, wrongColors.size() - 1)) + " and " + wrongColors.get(wrongColors.size() - 1);
         if (warningString.length() != 0) {
             warningPopup.setText("Invalid scramble! There are " + warningString + " fields. You should have 9 of each.");
             warningPopup.setVisible(true);
@@ -964,16 +769,9 @@ public class RubiksCubeSolver3D extends Application {
     }
 
     private void possibleCube() {
-        try {
-            fakeCube = cube;
-            whiteCross();
-            intuitiveF2L();
-            twoLookOLL();
-            twoLookPLL();
-            addToSolverMoves("x");
-        } catch (Exception e) {}
-        if (!compareTwoCubes(fakeCube, setupCube())) {
-            warningPopup.setText("Invalid scramble! It is unsolvable.");
+        String unsolvableReason = CubieState.unsolvableReason(cubeState);
+        if (unsolvableReason != null) {
+            warningPopup.setText("Invalid scramble! " + unsolvableReason);
             warningPopup.setVisible(true);
             for (Button button : buttons)
                 if (!button.getText().equals("Reset") && !button.getText().isEmpty())
@@ -983,17 +781,48 @@ public class RubiksCubeSolver3D extends Application {
             warningPopup.setVisible(false);
             setDisableControls(false);
         }
-        fakeCube = cube;
+    }
+
+    private void copyFaceletString() {
+        try {
+            ClipboardContent content = new ClipboardContent();
+            content.putString(cubeState.toFaceletString());
+            Clipboard.getSystemClipboard().setContent(content);
+        } catch (IllegalArgumentException e) {
+            warningPopup.setText("Cannot copy the cube! " + e.getMessage() + ".");
+            warningPopup.setVisible(true);
+        }
+    }
+
+    private void pasteFaceletString() {
+        String faceletString = Clipboard.getSystemClipboard().getString();
+        if (faceletString == null || moveAnimator.isPlaying() || optimalSearch != null || kociembaSearch != null)
+            return;
+        try {
+            cubeState.setFaceletString(faceletString.replaceAll("\\s", ""));
+        } catch (IllegalArgumentException e) {
+            warningPopup.setText("Invalid facelet string! " + e.getMessage() + ".");
+            warningPopup.setVisible(true);
+            return;
+        }
+        updateCubeColors(-1, -1);
+        fieldsQuantity();
+        if (!warningPopup.isVisible())
+            possibleCube();
     }
 
     private void reset() {
         KeyFrame resetKeyFrame = new KeyFrame(Duration.seconds(0), event -> {
-            rotationsTimeline.stop();
+            moveAnimator.stop();
             resetFlag = true;
-            cube = setupCube();
-            cubeGroup.getChildren().clear();
-            addCubeToCubeGroup();
-            fakeCube = cloneCube(cube, fakeCube);
+            if (optimalSearch != null) {
+                optimalSearch.cancel();
+                optimalSearch = null;
+            }
+            kociembaSearch = null;
+            cubeState = new CubeState();
+            updateCubeColors(-1, -1);
+            stopColoringCube();
             if (angleX.get() != 0 || angleY.get() != 0) {
                 angleX.set(0);
                 angleY.set(0);
@@ -1006,7 +835,8 @@ public class RubiksCubeSolver3D extends Application {
             warningPopup.setVisible(false);
             playedMovesPopup.setVisible(false);
             playedMovesScrollPane.setVisible(false);
-            playedMovesText.setText("");
+            moveHistory.clear();
+            playedMovesView.refresh();
             setDisableControls(false);
         });
         KeyFrame resetKeyFrame2 = new KeyFrame(Duration.seconds(rotationDuration + rotationDelay), event -> resetFlag = false);
@@ -1015,549 +845,130 @@ public class RubiksCubeSolver3D extends Application {
     }
 
     private void scramble() {
-        String[] scrambleMoves = new String[SCRAMBLE_SIZE];
-        int randCount;
-        Random rand = new Random();
-        randCount = rand.nextInt(PREDEFINED_MOVES.length);
-        scrambleMoves[0] = PREDEFINED_MOVES[randCount];
-        for (int count = 1; count < SCRAMBLE_SIZE; count ++) {
-            rand = new Random();
-            do {
-                randCount = rand.nextInt(PREDEFINED_MOVES.length);
-            } while (PREDEFINED_MOVES[randCount].charAt(0) == scrambleMoves[count - 1].charAt(0));
-            scrambleMoves[count] = PREDEFINED_MOVES[randCount];
-        }
+        String[] scrambleMoves = twoPhaseReady ? scrambleBuffer.next(SCRAMBLE_SIZE) : scrambleGenerator.next(SCRAMBLE_SIZE);
         playMoves(scrambleMoves);
-
-        if (playedMovesText.getText().equals(""))
-            playedMovesText.setText("Scramble moves (" + scrambleMoves.length + "):\n");
-        else {
-            for (int count = playedMovesText.getText().length() - 1; count > 0; count --)
-                if (playedMovesText.getText().charAt(count) == '(') {
-                    if (playedMovesText.getText().startsWith("Scramble moves", count - 15)) {
-                        int count2 = count + 1, totalMoves;
-                        String numberString = new String();
-                        while (playedMovesText.getText().charAt(count2) != ')') {
-                            numberString += playedMovesText.getText().charAt(count2);
-                            count2 ++;
-                        }
-                        totalMoves = Integer.parseInt(numberString) + scrambleMoves.length;
-                        playedMovesText.setText(playedMovesText.getText().substring(0, count + 1) + totalMoves + playedMovesText.getText().substring(count2));
-                        playedMovesText.setText(playedMovesText.getText() + ", ");
-                    }
-                    else
-                        playedMovesText.setText("Scramble moves (" + scrambleMoves.length + "):\n");
-                    break;
-                }
-        }
-        playedMovesText.setText(playedMovesText.getText() + Arrays.toString(scrambleMoves).substring(1, Arrays.toString(scrambleMoves).length() - 1));
-        playedMovesPopup.setVisible(true);
-        playedMovesScrollPane.setVisible(true);
+        moveHistory.add(MoveHistory.SCRAMBLE, scrambleMoves);
+        showMoveHistory();
     }
 
     private void solver() {
-        solverMoves.removeAll(solverMoves);
-        whiteCross();
-        intuitiveF2L();
-        twoLookOLL();
-        twoLookPLL();
-        addToSolverMoves("x");
-        shortenSolverMoves();
-        playMoves(solverMoves.toArray(new String[0]));
-        playedMovesText.setText("Solver moves (" + solverMoves.size() + "):\n" + Arrays.toString(solverMoves.toArray()).substring(1, Arrays.toString(solverMoves.toArray()).length() - 1));
-        playedMovesPopup.setVisible(true);
-        playedMovesScrollPane.setVisible(true);
-    }
-
-    private void addToSolverMoves(String... moves) {
-        for (String move : moves) {
-            solverMoves.add(move);
-            for (int count = 0; count < 3; count ++) {
-                String translatedMove = translateMove(move)[count];
-                if (translatedMove != null)
-                    fakeCube = recreateCube(fakeCube, translatedMove);
-            }
+        String[] moves = FridrichSolver.solveShortest(cubeState);
+        if (moves == null) {
+            warningPopup.setText("The solver could not solve this cube!");
+            warningPopup.setVisible(true);
+            return;
         }
+        playSolverMoves(moves);
     }
 
-    private void shortenSolverMoves() {
-        boolean flag = true;
-        boolean flag2 = true;
-        while (flag && flag2) {
-            for (int count = 0; count < solverMoves.size() - 2; count ++) {
-                if (solverMoves.get(count).equals(solverMoves.get(count + 1)) && solverMoves.get(count).equals(solverMoves.get(count + 2))) {
-                    if (solverMoves.get(count).charAt(solverMoves.get(count).length() - 1) == '\'')
-                        solverMoves.set(count, solverMoves.get(count).substring(0, 1));
-                    else
-                        solverMoves.set(count, solverMoves.get(count) + '\'');
-                    for (int count2 = 0; count2 < 2; count2 ++)
-                        solverMoves.remove(count + 1);
-                    flag = true;
-                }
-                else
-                    flag = false;
-            }
-            for (int count = 0; count < solverMoves.size() - 1; count ++)
-                if (solverMoves.get(count).charAt(0) == solverMoves.get(count + 1).charAt(0) && solverMoves.get(count).length() != solverMoves.get(count + 1).length()) {
-                    for (int count2 = 0; count2 < 2; count2 ++)
-                        solverMoves.remove(count);
-                    flag2 = true;
-                }
-                else
-                    flag2 = false;
-        }
+    private void prepareSolverTables() {
+        AtomicInteger readyTables = new AtomicInteger();
+        TableCache.setListener(name -> {
+            double progress = (double) readyTables.incrementAndGet() / (TwoPhaseSolver.TABLES + OptimalSolver.TABLES);
+            Platform.runLater(() -> tablesProgressBar.setProgress(progress));
+        });
+        ExecutorService tablesExecutor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "Solver tables");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tablesExecutor.execute(() -> {
+            TwoPhaseSolver.prepare();
+            twoPhaseReady = true;
+            StartupLog.phase("Kociemba tables ready");
+            Platform.runLater(this::solverTablesReady);
+        });
+        tablesExecutor.execute(() -> {
+            OptimalSolver.prepare();
+            optimalReady = true;
+            StartupLog.phase("optimal tables ready");
+            Platform.runLater(this::solverTablesReady);
+        });
+        tablesExecutor.shutdown();
     }
 
-    private void whiteCross() {
-        int initWhiteFace = -1;
-        for (countFace = 0; countFace < FACES; countFace ++) {
-            PhongMaterial material = (PhongMaterial) fakeCube[centralPieces[countFace][0]][centralPieces[countFace][1]][centralPieces[countFace][2]][countFace].getMaterial();
-            if (material.getDiffuseMap().equals(colors[0].getDiffuseMap()))
-                initWhiteFace = countFace;
-        }
-        switch (initWhiteFace) {
-            case 0:
-                addToSolverMoves("x'");
-                break;
-            case 1:
-                addToSolverMoves("x'", "x'");
-                break;
-            case 2:
-                addToSolverMoves("x");
-                break;
-            case 4:
-                addToSolverMoves("z'");
-                break;
-            case 5:
-                addToSolverMoves("z");
-                break;
-        }
-
-        for (int count = 0; count < 4; count ++) {
-            int edgePiecePos = -1;
-            stopCount = 0;
-            do {
-                stopCount ++;
-                int[] pieceXYZFF = findEdgePiece(fakeCube, colors[0], colors[switchFaces[2][count]]);
-                for (int count2 = 0; count2 < edgePieces.length; count2 ++)
-                    if (pieceXYZFF[0] == edgePieces[count2][0] && pieceXYZFF[1] == edgePieces[count2][1] && pieceXYZFF[2] == edgePieces[count2][2]) {
-                        edgePiecePos = count2;
-                        break;
-                    }
-                switch (edgePiecePos) {
-                    case 0:
-                        if (pieceXYZFF[3] == 0)
-                            addToSolverMoves("F", "E", "F");
-                        break;
-                    case 1:
-                        addToSolverMoves("F", "F");
-                        break;
-                    case 2:
-                        addToSolverMoves("U", "U");
-                        break;
-                    case 3:
-                        addToSolverMoves("B", "B");
-                        break;
-                    case 4:
-                        addToSolverMoves("F'");
-                        break;
-                    case 5:
-                        addToSolverMoves("F");
-                        break;
-                    case 6:
-                        addToSolverMoves("E'");
-                        break;
-                    case 7:
-                        addToSolverMoves("E");
-                        break;
-                    case 8:
-                        addToSolverMoves("L'", "F'");
-                        break;
-                    case 9:
-                        addToSolverMoves("U'", "F", "F");
-                        break;
-                    case 10:
-                        addToSolverMoves("U", "F", "F");
-                        break;
-                    case 11:
-                        addToSolverMoves("R", "F");
-                        break;
-                }
-            } while (edgePiecePos != 0 && stopCount < 10);
-            addToSolverMoves("y");
-        }
-
-        for (int count = 0; count < 4; count ++) {
-            PhongMaterial material = (PhongMaterial) fakeCube[1][0][2][0].getMaterial();
-            PhongMaterial material2 = (PhongMaterial) fakeCube[1][1][2][0].getMaterial();
-            if (material.getDiffuseMap().equals(material2.getDiffuseMap())) break;
-            else addToSolverMoves("E");
+    private void solverTablesReady() {
+        if (twoPhaseReady)
+            scrambleBuffer.start();
+        if (twoPhaseReady && optimalReady) {
+            TableCache.setListener(null);
+            tablesProgressBar.setVisible(false);
         }
     }
 
-    private void intuitiveF2L() {
-        for (int count = 0; count < 4; count ++) {
-            int[] pieceXYZFFF;
-            int cornerPiecePos = -1, finishCount = 0;
-            stopCount = 0;
-            do {
-                stopCount ++;
-                pieceXYZFFF = findCornerPiece(fakeCube, colors[0], colors[switchFaces[2][count]], colors[switchFaces[2][count + 1]]);
-                for (int count2 = 0; count2 < cornerPieces.length; count2 ++)
-                    if (pieceXYZFFF[0] == cornerPieces[count2][0] && pieceXYZFFF[1] == cornerPieces[count2][1] && pieceXYZFFF[2] == cornerPieces[count2][2]) {
-                        cornerPiecePos = count2;
-                        break;
-                    }
-                switch (cornerPiecePos) {
-                    case 0:
-                        addToSolverMoves("L'", "U'", "L");
-                        break;
-                    case 1:
-                        addToSolverMoves("U'");
-                        break;
-                    case 2:
-                        if (pieceXYZFFF[3] == 0 || pieceXYZFFF[3] == 1)
-                            addToSolverMoves("R", "U", "U", "R'", "U'");
-                        finishCount ++;
-                        break;
-                    case 3:
-                        addToSolverMoves("R", "U", "R'");
-                        break;
-                    case 4:
-                        addToSolverMoves("L", "U", "L'");
-                        break;
-                    case 5:
-                    case 6:
-                        addToSolverMoves("U");
-                        break;
-                    case 7:
-                        addToSolverMoves("R'", "U", "R");
-                        break;
-                }
-            } while (finishCount < 3 && stopCount < 10);
-            int edgePiecePos = -1;
-            stopCount = 0;
-            boolean finishFlag = false;
-            do {
-                stopCount ++;
-                int[] pieceXYZFF = findEdgePiece(fakeCube, colors[switchFaces[2][count]], colors[switchFaces[2][count + 1]]);
-                for (int count2 = 0; count2 < edgePieces.length; count2 ++)
-                    if (pieceXYZFF[0] == edgePieces[count2][0] && pieceXYZFF[1] == edgePieces[count2][1] && pieceXYZFF[2] == edgePieces[count2][2]) {
-                        edgePiecePos = count2;
-                        break;
-                    }
-                switch (edgePiecePos) {
-                    case 1:
-                        if (pieceXYZFF[3] == pieceXYZFFF[4])
-                            addToSolverMoves("U'", "F'", "U", "F");
-                        else
-                            addToSolverMoves("U", "F'", "U", "U", "F", "U'", "R", "U", "R'");
-                        finishFlag = true;
-                        break;
-                    case 2:
-                        if (pieceXYZFF[4] == pieceXYZFFF[5])
-                            addToSolverMoves("U", "F'", "U", "U", "F", "U", "U", "F'", "U", "F");
-                        else
-                            addToSolverMoves("R", "U", "R'");
-                        finishFlag = true;
-                        break;
-                    case 4:
-                        addToSolverMoves("U'", "L'", "U", "L");
-                        break;
-                    case 5:
-                        addToSolverMoves("U", "R", "U", "R'", "U", "U");
-                        break;
-                    case 6:
-                        addToSolverMoves("B", "U", "B'", "U'");
-                        break;
-                    case 7:
-                        addToSolverMoves("B'", "U", "B", "U'");
-                        break;
-                    case 9:
-                        addToSolverMoves("U", "U", "R", "U'", "R'", "U'");
-                        break;
-                    case 10:
-                        addToSolverMoves("U'", "R", "U'", "R'", "U");
-                        break;
-                }
-            } while (!finishFlag && stopCount < 10);
-            addToSolverMoves("y");
+    private void kociembaSolver() {
+        if (!twoPhaseReady) {
+            solver();
+            return;
         }
-    }
-
-    private void twoLookOLL() {
-        int[] uEdgePieces = {1, 9, 2, 10};
-        boolean[] situation;
-        int countEdgePieces;
-        stopCount = 0;
-        boolean finishFlag = false;
-        do {
-            stopCount ++;
-            situation = new boolean[]{false, false, false, false};
-            countEdgePieces = 0;
-            for (int count = 0; count < uEdgePieces.length; count ++) {
-                PhongMaterial material = (PhongMaterial) fakeCube[edgePieces[uEdgePieces[count]][0]][edgePieces[uEdgePieces[count]][1]][edgePieces[uEdgePieces[count]][2]][1].getMaterial();
-                if (material.getDiffuseMap().equals(colors[2].getDiffuseMap())) {
-                    situation[count] = true;
-                    countEdgePieces ++;
-                }
-            }
-            switch (countEdgePieces) {
-                case 0:
-                case 1:
-                    addToSolverMoves("F", "R", "U", "R'", "U'", "F'", "F", "R", "U", "R'", "U'", "F'");
-                    break;
-                case 2:
-                case 3:
-                    if (situation[0] && situation[2])
-                        addToSolverMoves("U", "F", "R", "U", "R'", "U'", "F'");
-                    else if (situation[1] && situation[3])
-                        addToSolverMoves("F", "R", "U", "R'", "U'", "F'");
-                    else if (situation[0] && situation[3])
-                        addToSolverMoves("F", "R", "U", "R'", "U'", "F'");
-                    else if (situation[0] && situation[1])
-                        addToSolverMoves("U'", "F", "R", "U", "R'", "U'", "F'");
-                    else if (situation[1] && situation[2])
-                        addToSolverMoves("U", "U", "F", "R", "U", "R'", "U'", "F'");
-                    else if (situation[2] && situation[3])
-                        addToSolverMoves("U", "F", "R", "U", "R'", "U'", "F'");
-                    break;
-                case 4:
-                    finishFlag = true;
-                    break;
-            }
-        } while (!finishFlag && stopCount < 10);
-
-        PhongMaterial[] materials = new PhongMaterial[4];
-        String[][] instructions = {
-                new String[]{"R", "U", "R'", "U", "R", "U", "U", "R'"},
-                new String[]{"R", "U", "U", "R'", "U'", "R", "U'", "R'"},
-                new String[]{"x'", "D", "R", "U'", "R'", "D'", "R", "U", "R'", "x"},
-                new String[]{"x'", "R", "U'", "R'", "D", "R", "U", "R'", "D'", "x"},
-                new String[]{"R", "R", "D", "R'", "U", "U", "R", "D'", "R'", "U", "U", "R'"},
-                new String[]{"R", "U", "R'", "U", "R", "U'", "R'", "U", "R", "U", "U", "R'"},
-                new String[]{"R", "U", "U", "R", "R", "U'", "R", "R", "U'", "R", "R", "U", "U", "R"},
-        };
-        boolean situation2Flag = false;
-        stopCount = 0;
-        do {
-            stopCount ++;
-            boolean checkFlag = true;
-            for (countX = 0; countX < CUBE_DIMENSION; countX ++)
-                for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++) {
-                    PhongMaterial material = (PhongMaterial) fakeCube[countX][2][countZ][1].getMaterial();
-                    if (!material.getDiffuseMap().equals(colors[2].getDiffuseMap()))
-                        checkFlag = false;
+        CubeState state = new CubeState(cubeState);
+        kociembaSearch = state;
+        stopColoringCube();
+        setDisableControls(true);
+        Thread searchThread = new Thread(() -> {
+            String[] moves;
+            try {
+                moves = TwoPhaseSolver.solve(state);
+            } catch (IllegalArgumentException e) {
+                moves = null;
             }
-            if (checkFlag) break;
-
-            for (int count2 = 0; count2 < 7; count2 ++) {
-                situation2Flag = true;
-                switch (count2) {
-                    case 0:
-                        materials[0] = (PhongMaterial) fakeCube[0][2][2][1].getMaterial();
-                        materials[1] = (PhongMaterial) fakeCube[0][2][0][2].getMaterial();
-                        materials[2] = (PhongMaterial) fakeCube[2][2][0][5].getMaterial();
-                        materials[3] = (PhongMaterial) fakeCube[2][2][2][0].getMaterial();
-                        break;
-                    case 1:
-                        materials[0] = (PhongMaterial) fakeCube[2][2][0][1].getMaterial();
-                        materials[1] = (PhongMaterial) fakeCube[0][2][0][4].getMaterial();
-                        materials[2] = (PhongMaterial) fakeCube[2][2][2][5].getMaterial();
-                        materials[3] = (PhongMaterial) fakeCube[0][2][2][0].getMaterial();
-                        break;
-                    case 2:
-                        materials[0] = (PhongMaterial) fakeCube[0][2][0][1].getMaterial();
-                        materials[1] = (PhongMaterial) fakeCube[2][2][0][1].getMaterial();
-                        materials[2] = (PhongMaterial) fakeCube[0][2][2][4].getMaterial();
-                        materials[3] = (PhongMaterial) fakeCube[2][2][2][5].getMaterial();
-                        break;
-                    case 3:
-                        materials[0] = (PhongMaterial) fakeCube[2][2][0][1].getMaterial();
-                        materials[1] = (PhongMaterial) fakeCube[0][2][2][1].getMaterial();
-                        materials[2] = (PhongMaterial) fakeCube[0][2][0][2].getMaterial();
-                        materials[3] = (PhongMaterial) fakeCube[2][2][2][5].getMaterial();
-                        break;
-                    case 4:
-                        materials[0] = (PhongMaterial) fakeCube[0][2][0][1].getMaterial();
-                        materials[1] = (PhongMaterial) fakeCube[2][2][0][1].getMaterial();
-                        materials[2] = (PhongMaterial) fakeCube[0][2][2][0].getMaterial();
-                        materials[3] = (PhongMaterial) fakeCube[2][2][2][0].getMaterial();
-                        break;
-                    case 5:
-                        materials[0] = (PhongMaterial) fakeCube[0][2][0][4].getMaterial();
-                        materials[1] = (PhongMaterial) fakeCube[2][2][0][5].getMaterial();
-                        materials[2] = (PhongMaterial) fakeCube[0][2][2][4].getMaterial();
-                        materials[3] = (PhongMaterial) fakeCube[2][2][2][5].getMaterial();
-                        break;
-                    case 6:
-                        materials[0] = (PhongMaterial) fakeCube[0][2][0][4].getMaterial();
-                        materials[1] = (PhongMaterial) fakeCube[2][2][0][2].getMaterial();
-                        materials[2] = (PhongMaterial) fakeCube[0][2][2][4].getMaterial();
-                        materials[3] = (PhongMaterial) fakeCube[2][2][2][0].getMaterial();
-                        break;
-                }
-                for (PhongMaterial material : materials)
-                    if (!material.getDiffuseMap().equals(colors[2].getDiffuseMap()))
-                        situation2Flag = false;
-                if (situation2Flag) {
-                    addToSolverMoves(instructions[count2]);
-                    break;
+            String[] finalMoves = moves;
+            Platform.runLater(() -> {
+                if (kociembaSearch != state)
+                    return;
+                kociembaSearch = null;
+                if (finalMoves == null) {
+                    warningPopup.setText("The Kociemba solver could not solve this cube!");
+                    warningPopup.setVisible(true);
+                    setDisableControls(false);
                 }
-            }
-            if (!situation2Flag)
-                addToSolverMoves("U");
-        } while (!situation2Flag && stopCount < 10);
-    }
-
-    private void twoLookPLL() {
-        PhongMaterial material, refMaterial, refMaterial2;
-        int[] uCornerPieces = {1, 5, 6, 2};
-        int cornerPiecePos = -1;
-        int[] pieceXYZ;
-        pieceXYZ = Arrays.copyOfRange(findCornerPiece(fakeCube, colors[2], colors[1], colors[4]), 0, 3);
-        for (int count = 0; count < uCornerPieces.length; count ++)
-            if (Arrays.equals(pieceXYZ, cornerPieces[uCornerPieces[count]]))
-                cornerPiecePos = count;
-        switch (cornerPiecePos) {
-            case 1:
-                addToSolverMoves("U'");
-                break;
-            case 2:
-                addToSolverMoves("U", "U");
-                break;
-            case 3:
-                addToSolverMoves("U");
-                break;
-        }
-        ArrayList<Integer> warningCornerPiecesPos = new ArrayList<>();
-        pieceXYZ = Arrays.copyOfRange(findCornerPiece(fakeCube, colors[2], colors[4], colors[3]), 0, 3);
-        if (!Arrays.equals(pieceXYZ, cornerPieces[uCornerPieces[1]]))
-            warningCornerPiecesPos.add(1);
-        pieceXYZ = Arrays.copyOfRange(findCornerPiece(fakeCube, colors[2], colors[3], colors[5]), 0, 3);
-        if (!Arrays.equals(pieceXYZ, cornerPieces[uCornerPieces[2]]))
-            warningCornerPiecesPos.add(2);
-        pieceXYZ = Arrays.copyOfRange(findCornerPiece(fakeCube, colors[2], colors[5], colors[1]), 0, 3);
-        if (!Arrays.equals(pieceXYZ, cornerPieces[uCornerPieces[3]]))
-            warningCornerPiecesPos.add(3);
-        switch (warningCornerPiecesPos.size()) {
-            case 2:
-                if (warningCornerPiecesPos.get(0) == 1 && warningCornerPiecesPos.get(1) == 2)
-                    addToSolverMoves("y", "R", "U", "R'", "U'", "R'", "F", "R", "R", "U'", "R'", "U'", "R", "U", "R'", "F'", "y'");
-                else if (warningCornerPiecesPos.get(0) == 2 && warningCornerPiecesPos.get(1) == 3)
-                    addToSolverMoves("R", "U", "R'", "U'", "R'", "F", "R", "R", "U'", "R'", "U'", "R", "U", "R'", "F'");
-                else if (warningCornerPiecesPos.get(0) == 1 && warningCornerPiecesPos.get(1) == 3)
-                    addToSolverMoves("F", "R", "U'", "R'", "U'", "R", "U", "R'", "F'", "R", "U", "R'", "U'", "R'", "F", "R", "F'");
-                break;
-            case 3:
-                material = (PhongMaterial) fakeCube[0][2][0][2].getMaterial();
-                if (material.getDiffuseMap().equals(colors[5].getDiffuseMap()))
-                    addToSolverMoves("x", "R'", "U", "R'", "D", "D", "R", "U'", "R'", "D", "D", "R", "R", "x'");
                 else
-                    addToSolverMoves("x", "R", "R", "D", "D", "R", "U", "R'", "D", "D", "R", "U'", "R", "x'");
-                break;
-        }
+                    playSolverMoves(finalMoves);
+            });
+        });
+        searchThread.setDaemon(true);
+        searchThread.start();
+    }
 
-        int[] uEdgePieces = {1, 9, 2, 10};
-        ArrayList<Integer> warningEdgePiecesPos = new ArrayList<>();
-        for (int count = 0; count < uEdgePieces.length; count ++) {
-            material = (PhongMaterial) fakeCube[edgePieces[uEdgePieces[count]][0]][edgePieces[uEdgePieces[count]][1]][edgePieces[uEdgePieces[count]][2]][switchFaces[1][count]].getMaterial();
-            refMaterial = (PhongMaterial) fakeCube[edgePieces[uEdgePieces[count]][0]][edgePieces[uEdgePieces[count]][1] - 1][edgePieces[uEdgePieces[count]][2]][switchFaces[1][count]].getMaterial();
-            if (!material.getDiffuseMap().equals(refMaterial.getDiffuseMap()))
-                warningEdgePiecesPos.add(count);
-        }
-        switch (warningEdgePiecesPos.size()) {
-            case 3:
-                ArrayList<String> afterMove = new ArrayList<>();
-                if (!warningEdgePiecesPos.contains(0)) {
-                    addToSolverMoves("y", "y");
-                    afterMove.addAll(Arrays.asList("y", "y"));
-                }
-                else if (!warningEdgePiecesPos.contains(1)) {
-                    addToSolverMoves("y");
-                    afterMove.add("y'");
-                }
-                else if (!warningEdgePiecesPos.contains(3)) {
-                    addToSolverMoves("y'");
-                    afterMove.add("y");
-                }
-                material = (PhongMaterial) fakeCube[1][2][2][0].getMaterial();
-                refMaterial = (PhongMaterial) fakeCube[0][1][1][4].getMaterial();
-                if (material.getDiffuseMap().equals(refMaterial.getDiffuseMap()))
-                    addToSolverMoves("R", "R", "U", "R", "U", "R'", "U'", "R'", "U'", "R'", "U", "R'");
-                else
-                    addToSolverMoves("R", "U'", "R", "U", "R", "U", "R", "U'", "R'", "U'", "R", "R");
-                addToSolverMoves(afterMove.toArray(new String[0]));
-                break;
-            case 4:
-                material = (PhongMaterial) fakeCube[1][2][2][0].getMaterial();
-                refMaterial = (PhongMaterial) fakeCube[0][1][1][4].getMaterial();
-                refMaterial2 = (PhongMaterial) fakeCube[1][1][0][2].getMaterial();
-                if (material.getDiffuseMap().equals(refMaterial.getDiffuseMap()))
-                    addToSolverMoves("R'", "U'", "R", "U'", "R", "U", "R", "U'", "R'", "U", "R", "U", "R", "R", "U'", "R'", "U", "U");
-                else if (material.getDiffuseMap().equals(refMaterial2.getDiffuseMap()))
-                    addToSolverMoves("M", "M", "U", "M", "M", "U", "U", "M", "M", "U", "M", "M");
-                else
-                    addToSolverMoves("M", "M", "U", "M", "M", "U", "M'", "U", "U", "M", "M", "U", "U", "M'", "U", "U");
-                break;
+    private void optimalSolver() {
+        if (!optimalReady) {
+            solver();
+            return;
         }
+        if (optimalSearch != null)
+            optimalSearch.cancel();
+        OptimalSolver solver = new OptimalSolver(cubeState);
+        optimalSearch = solver;
+        stopColoringCube();
+        setDisableControls(true);
+        playedMovesView.showMessage("Searching for an optimal solution...");
+        playedMovesPopup.setVisible(true);
+        playedMovesScrollPane.setVisible(true);
+        Thread searchThread = new Thread(() -> {
+            String[] moves = solver.solve();
+            Platform.runLater(() -> {
+                if (moves == null || optimalSearch != solver)
+                    return;
+                optimalSearch = null;
+                playSolverMoves(moves);
+                moveHistory.setNote(String.format("(%,d nodes, %,.0f nodes/s)", solver.getNodes(), solver.getNodesPerSecond()));
+                playedMovesView.refresh();
+            });
+        });
+        searchThread.setDaemon(true);
+        searchThread.start();
     }
 
-    private int[] findEdgePiece(Box[][][][] cube, PhongMaterial firstColor, PhongMaterial secondColor) {
-        int count;
-        int firstColorFace = -1, secondColorFace = -1;
-        int countFirstColor, countSecondColor, countBgColor;
-        for (count = 0; count < edgePieces.length; count ++) {
-            countFirstColor = 0;
-            countSecondColor = 0;
-            countBgColor = 0;
-            for (countFace = 0; countFace < FACES; countFace ++) {
-                PhongMaterial material = (PhongMaterial) cube[edgePieces[count][0]][edgePieces[count][1]][edgePieces[count][2]][countFace].getMaterial();
-                if (material.getDiffuseMap().equals(firstColor.getDiffuseMap())) {
-                    firstColorFace = countFace;
-                    countFirstColor ++;
-                }
-                if (material.getDiffuseMap().equals(secondColor.getDiffuseMap())) {
-                    secondColorFace = countFace;
-                    countSecondColor ++;
-                }
-                if (material.getDiffuseMap().equals(colors[6].getDiffuseMap()))
-                    countBgColor ++;
-            }
-            if (countFirstColor == 1 && countSecondColor == 1 && countBgColor == FACES - 2) break;
-        }
-        return new int[] {edgePieces[count][0], edgePieces[count][1], edgePieces[count][2], firstColorFace, secondColorFace};
+    private void playSolverMoves(String[] moves) {
+        playMoves(moves);
+        moveHistory.add(MoveHistory.SOLVER, moves);
+        showMoveHistory();
     }
 
-    private int[] findCornerPiece(Box[][][][] cube, PhongMaterial firstColor, PhongMaterial secondColor, PhongMaterial thirdColor) {
-        int count;
-        int firstColorFace = -1, secondColorFace = -1, thirdColorFace = -1;
-        int countFirstColor, countSecondColor, countThirdColor, countBgColor;
-        for (count = 0; count < cornerPieces.length; count ++) {
-            countFirstColor = 0;
-            countSecondColor = 0;
-            countThirdColor = 0;
-            countBgColor = 0;
-            for (countFace = 0; countFace < FACES; countFace ++) {
-                PhongMaterial material = (PhongMaterial) cube[cornerPieces[count][0]][cornerPieces[count][1]][cornerPieces[count][2]][countFace].getMaterial();
-                if (material.getDiffuseMap().equals(firstColor.getDiffuseMap())) {
-                    firstColorFace = countFace;
-                    countFirstColor ++;
-                }
-                if (material.getDiffuseMap().equals(secondColor.getDiffuseMap())) {
-                    secondColorFace = countFace;
-                    countSecondColor ++;
-                }
-                if (material.getDiffuseMap().equals(thirdColor.getDiffuseMap())) {
-                    thirdColorFace = countFace;
-                    countThirdColor ++;
-                }
-                if (material.getDiffuseMap().equals(colors[6].getDiffuseMap()))
-                    countBgColor ++;
-            }
-            if (countFirstColor == 1 && countSecondColor == 1 && countThirdColor == 1 && countBgColor == FACES - 3) break;
-        }
-        return new int[] {cornerPieces[count][0], cornerPieces[count][1], cornerPieces[count][2], firstColorFace, secondColorFace, thirdColorFace};
+    private void showMoveHistory() {
+        playedMovesView.refresh();
+        playedMovesPopup.setVisible(true);
+        playedMovesScrollPane.setVisible(true);
     }
 
     private void cubeMouseControl() {
@@ -1581,43 +992,19 @@ public class RubiksCubeSolver3D extends Application {
         });
     }
 
-    private Box[][][][] cloneCube(Box[][][][] startCube, Box[][][][] newCube) {
-        for (countX = 0; countX < CUBE_DIMENSION; countX ++)
-            for (countY = 0; countY < CUBE_DIMENSION; countY ++)
-                for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++)
-                    for (countFace = 0; countFace < FACES; countFace ++) {
-                        newCube[countX][countY][countZ][countFace] = new Box(CUBE_SIDE, CUBE_SIDE, CUBE_SIDE);
-                        newCube[countX][countY][countZ][countFace].setTranslateX(startCube[countX][countY][countZ][countFace].getTranslateX());
-                        newCube[countX][countY][countZ][countFace].setTranslateY(startCube[countX][countY][countZ][countFace].getTranslateY());
-                        newCube[countX][countY][countZ][countFace].setTranslateZ(startCube[countX][countY][countZ][countFace].getTranslateZ());
-                        newCube[countX][countY][countZ][countFace].setMaterial(startCube[countX][countY][countZ][countFace].getMaterial());
-                    }
-        return newCube;
-    }
-
-    private boolean compareTwoCubes(Box[][][][] cube, Box[][][][] cube2) {
-        boolean flag = true;
-        for (countX = 0; countX < CUBE_DIMENSION; countX ++)
-            for (countY = 0; countY < CUBE_DIMENSION; countY ++)
-                for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++)
-                    for (countFace = 0; countFace < FACES; countFace ++) {
-                        PhongMaterial material = (PhongMaterial) cube[countX][countY][countZ][countFace].getMaterial();
-                        PhongMaterial material2 = (PhongMaterial) cube2[countX][countY][countZ][countFace].getMaterial();
-                        if (!material.getDiffuseMap().equals(material2.getDiffuseMap()))
-                            flag = false;
-                    }
-        return flag;
-    }
-
     private void addCubeToCubeGroup() {
         for (countX = 0; countX < CUBE_DIMENSION; countX ++)
             for (countY = 0; countY < CUBE_DIMENSION; countY ++)
                 for (countZ = 0; countZ < CUBE_DIMENSION; countZ ++)
-                    for (countFace = 0; countFace < FACES; countFace ++)
-                        cubeGroup.getChildren().add(cube[countX][countY][countZ][countFace]);
+                    cubeGroup.getChildren().add(cube[countX][countY][countZ]);
     }
 
-    public static void main(String[] args) {
-        launch(args);
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--batch"))
+            BatchSolver.main(Arrays.copyOfRange(args, 1, args.length));
+        else {
+            StartupLog.phase("main");
+            launch(args);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package RubiksCubeSolver3D;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Random state scrambles generated ahead of time by a daemon thread, so that taking one is instant.
+ * The thread fills the queue up to its capacity and then waits for room; it starts with start or the first call of
+ * next. If the queue is empty when a scramble is needed, a random move scramble is returned instead, so that
+ * next never runs the solver on the calling thread.
+ */
+
+final class ScrambleBuffer {
+
+    private final ArrayBlockingQueue<String[]> scrambles;
+    private final ScrambleGenerator producer;
+    private final ScrambleGenerator consumer;
+    private Thread thread;
+
+    /**
+     * The buffer takes two independent generators split from generator, one for each thread.
+     */
+    ScrambleBuffer(ScrambleGenerator generator, int capacity) {
+        scrambles = new ArrayBlockingQueue<>(capacity);
+        producer = generator.split();
+        consumer = generator.split();
+    }
+
+    /**
+     * Starts filling the queue, unless it is already being filled. Only the thread calling next may call it.
+     */
+    void start() {
+        if (thread != null)
+            return;
+        thread = new Thread(() -> {
+            try {
+                while (true)
+                    scrambles.put(producer.nextRandomState());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "Scramble buffer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * A random state scramble, or a scramble of fallbackLength random moves if none is ready. Only one thread may call it.
+     */
+    String[] next(int fallbackLength) {
+        start();
+        String[] scramble = scrambles.poll();
+        return scramble != null ? scramble : consumer.next(fallbackLength);
+    }
+}
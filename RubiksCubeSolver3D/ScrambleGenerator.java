@@ -0,0 +1,187 @@
+package RubiksCubeSolver3D;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Random move scrambles in canonical form: only the 18 face turns, never the same face twice in a row, and two turns
+ * of opposite faces, which commute, only in one order (F before B, U before D, L before R), so R L R and the like
+ * cannot happen and no sequence can be shortened by merging moves. Every move is drawn directly among the moves
+ * allowed after the previous one, without redrawing.
+ * Random state scrambles instead draw every solvable cube with the same probability and reach it with the inverse of
+ * a two-phase solution, which needs the tables of TwoPhaseSolver.
+ * A generator is a SplittableRandom: split() gives an independent generator for another thread, and the static
+ * methods derive the scramble with a given index from a seed alone, so a corpus is the same however it is split up.
+ */
+
+final class ScrambleGenerator {
+
+    private static final String[] FACE_NAMES = {"F", "U", "B", "D", "L", "R"};
+    private static final String[] TURN_SUFFIXES = {"", "2", "'"};
+    private static final int FACES = FACE_NAMES.length;
+    private static final int TURNS = TURN_SUFFIXES.length;
+    private static final String[] MOVES = new String[FACES * TURNS];
+    private static final long INDEX_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int EDGE_PERMUTATIONS = 479001600;
+
+    /**
+     * allowedMoves[face] are the moves that may follow a turn of face, allowedMoves[FACES] the ones that may start.
+     */
+    private static final int[][] allowedMoves = new int[FACES + 1][];
+
+    static {
+        for (int face = 0; face < FACES; face ++)
+            for (int turn = 0; turn < TURNS; turn ++)
+                MOVES[face * TURNS + turn] = FACE_NAMES[face] + TURN_SUFFIXES[turn];
+        for (int previous = 0; previous <= FACES; previous ++) {
+            int count = 0;
+            int[] moves = new int[FACES * TURNS];
+            for (int face = 0; face < FACES; face ++)
+                if (previous == FACES || face != previous && (axis(face) != axis(previous) || face > previous))
+                    for (int turn = 0; turn < TURNS; turn ++)
+                        moves[count ++] = face * TURNS + turn;
+            allowedMoves[previous] = new int[count];
+            System.arraycopy(moves, 0, allowedMoves[previous], 0, count);
+        }
+    }
+
+    private final SplittableRandom random;
+
+    /**
+     * A generator with an unpredictable seed.
+     */
+    ScrambleGenerator() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * A generator that always gives the same scrambles for the same seed.
+     */
+    ScrambleGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private ScrambleGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    private static int axis(int face) {
+        return face < 4 ? face % 2 : 2;
+    }
+
+    /**
+     * A new generator, independent from this one, for use on another thread.
+     */
+    ScrambleGenerator split() {
+        return new ScrambleGenerator(random.split());
+    }
+
+    /**
+     * A canonical scramble of length moves.
+     */
+    String[] next(int length) {
+        String[] scramble = new String[length];
+        int previous = FACES;
+        for (int count = 0; count < length; count ++) {
+            int[] moves = allowedMoves[previous];
+            int move = moves[random.nextInt(moves.length)];
+            scramble[count] = MOVES[move];
+            previous = move / TURNS;
+        }
+        return scramble;
+    }
+
+    /**
+     * A uniformly random solvable cube. Permutations with different corner and edge parity get their last two edges
+     * swapped, so every solvable permutation is drawn from exactly two of the raw ones; the last twist and flip are
+     * already set by the others.
+     */
+    CubieState nextState() {
+        CubieState state = new CubieState();
+        state.setCornerPermutation(random.nextInt(CubieState.CORNER_PERMUTATIONS));
+        state.setEdgePermutation(random.nextInt(EDGE_PERMUTATIONS));
+        if (state.getCornerParity() != state.getEdgeParity()) {
+            byte edge = state.edgePermutation[CubieState.EDGES - 2];
+            state.edgePermutation[CubieState.EDGES - 2] = state.edgePermutation[CubieState.EDGES - 1];
+            state.edgePermutation[CubieState.EDGES - 1] = edge;
+        }
+        state.setTwist(random.nextInt(CubieState.TWISTS));
+        state.setFlip(random.nextInt(CubieState.FLIPS));
+        return state;
+    }
+
+    /**
+     * A scramble leading to a uniformly random state: the solution of that state, backwards and inverted.
+     */
+    String[] nextRandomState() {
+        String[] solution = TwoPhaseSolver.solve(nextState().toState());
+        String[] scramble = new String[solution.length];
+        for (int count = 0; count < solution.length; count ++) {
+            String move = solution[solution.length - 1 - count];
+            scramble[count] = move.endsWith("2") ? move : move.endsWith("'") ? move.substring(0, 1) : move + "'";
+        }
+        return scramble;
+    }
+
+    /**
+     * The scramble number index of the corpus given by seed; it only depends on the seed and the index.
+     * Consecutive seeds of SplittableRandom give overlapping sequences, so each scramble uses a split of one instead.
+     */
+    static String[] scramble(long seed, long index, int length) {
+        return new ScrambleGenerator(new SplittableRandom(seed + index * INDEX_GAMMA).split()).next(length);
+    }
+
+    /**
+     * Same as scramble, for random state scrambles. The solver stops at the first solution of at most
+     * TwoPhaseSolver.DEFAULT_MAX_LENGTH moves, so the result does not depend on timing unless it runs into its timeout.
+     */
+    static String[] randomStateScramble(long seed, long index) {
+        return new ScrambleGenerator(new SplittableRandom(seed + index * INDEX_GAMMA).split()).nextRandomState();
+    }
+
+    /**
+     * The first count scrambles of the corpus given by seed, in index order; the stream can be made parallel
+     * and still holds the same scrambles.
+     */
+    static Stream<String[]> scrambles(long seed, long count, int length) {
+        return LongStream.range(0, count).mapToObj(index -> scramble(seed, index, length));
+    }
+
+    static Stream<String[]> randomStateScrambles(long seed, long count) {
+        return LongStream.range(0, count).mapToObj(index -> randomStateScramble(seed, index));
+    }
+
+    /**
+     * Headless entry point: writes count scrambles, one per line as BatchSolver reads them.
+     * Random state scrambles are solved on all cores; the length is then ignored.
+     *
+     * Usage: ScrambleGenerator [--random-state] count [length] [seed]
+     */
+    public static void main(String[] args) {
+        boolean randomState = args.length > 0 && args[0].equals("--random-state");
+        if (randomState)
+            args = Arrays.copyOfRange(args, 1, args.length);
+        if (args.length == 0) {
+            System.err.println("Usage: ScrambleGenerator [--random-state] count [length] [seed]");
+            System.exit(1);
+        }
+        long count = Long.parseLong(args[0]);
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandom().nextLong();
+        long startTime = System.nanoTime();
+        if (randomState)
+            TwoPhaseSolver.prepare();
+        try (PrintWriter output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)))) {
+            Stream<String[]> scrambles = randomState ? randomStateScrambles(seed, count).parallel() : scrambles(seed, count, length);
+            scrambles.forEachOrdered(scramble -> output.println(String.join(" ", scramble)));
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.err.printf("%,d scrambles (seed %d) in %.2f s, %,.0f scrambles/s%n", count, seed, seconds, count / seconds);
+    }
+}
@@ -0,0 +1,21 @@
+package RubiksCubeSolver3D;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Logs the startup phases on stderr with the milliseconds since the JVM was started, from any thread,
+ * so the time to the first frame can be followed on slow machines. Turned off with -DstartupLog=false.
+ */
+
+final class StartupLog {
+
+    private static final boolean ENABLED = !"false".equals(System.getProperty("startupLog"));
+    private static final long JVM_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private StartupLog() {}
+
+    static synchronized void phase(String name) {
+        if (ENABLED)
+            System.err.printf("startup %6d ms  %s (%s)%n", System.currentTimeMillis() - JVM_START_MILLIS, name, Thread.currentThread().getName());
+    }
+}
@@ -0,0 +1,124 @@
+package RubiksCubeSolver3D;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of the solver tables, one file per table in ~/.rubikscubesolver3d
+ * (or in the directory named by the rubikscubesolver3d.cache system property).
+ * A file holds a header (magic, format version, data length, CRC32 of the data) followed by the raw table;
+ * it is written to a temporary file and moved into place, then mapped read-only, so every JVM on the host
+ * shares the same pages and a reader never sees a half written table.
+ * The CRC is checked right after a table is written; on later launches only the header and the file size are,
+ * unless -Drubikscubesolver3d.verifyCache=true asks to read every table through again.
+ */
+
+final class TableCache {
+
+    private static final int MAGIC = 0x52433344;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final boolean VERIFY = Boolean.getBoolean("rubikscubesolver3d.verifyCache");
+    private static final Path directory = Paths.get(System.getProperty("rubikscubesolver3d.cache",
+            Paths.get(System.getProperty("user.home"), ".rubikscubesolver3d").toString()));
+
+    private static volatile Consumer<String> listener;
+
+    private TableCache() {}
+
+    /**
+     * The listener is called with the name of every table once it is ready, from the thread that loaded it.
+     */
+    static void setListener(Consumer<String> tableListener) {
+        listener = tableListener;
+    }
+
+    /**
+     * Returns the cached table called name, building it (and storing it for the next launches) when the file
+     * is missing, from another format version or of the wrong size. If the cache cannot be written the built table is used as is.
+     */
+    static ByteBuffer load(String name, int length, Supplier<ByteBuffer> builder) {
+        Path file = directory.resolve(name + ".table");
+        ByteBuffer cached = map(file, length, VERIFY);
+        if (cached == null) {
+            ByteBuffer table = builder.get();
+            try {
+                store(file, table);
+                cached = map(file, length, true);
+            } catch (IOException e) {
+                System.err.println("Cannot cache table " + name + ": " + e);
+            }
+            if (cached == null)
+                cached = table;
+        }
+        Consumer<String> tableListener = listener;
+        if (tableListener != null)
+            tableListener.accept(name);
+        return cached;
+    }
+
+    private static ByteBuffer map(Path file, int length, boolean verify) {
+        if (!Files.isRegularFile(file))
+            return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + (long) length)
+                return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != length)
+                return null;
+            buffer.position(HEADER_SIZE);
+            ByteBuffer data = buffer.slice();
+            if (verify && buffer.getLong(12) != checksum(data))
+                return null;
+            return data;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void store(Path file, ByteBuffer table) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            ByteBuffer data = table.duplicate();
+            data.clear();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(data.capacity()).putLong(checksum(data)).flip();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining())
+                    channel.write(header);
+                while (data.hasRemaining())
+                    channel.write(data);
+                channel.force(true);
+            }
+            try {
+                Files.setPosixFilePermissions(temporary, PosixFilePermissions.fromString("rw-r--r--"));
+            } catch (UnsupportedOperationException e) {}
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static long checksum(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,161 @@
+package RubiksCubeSolver3D;
+
+/**
+ * Kociemba's two-phase algorithm. Phase 1 brings the cube into the subgroup <U, D, L2, R2, F2, B2>
+ * (no twisted corners, no flipped edges, E slice edges in the E slice), phase 2 solves it inside that subgroup.
+ * The search keeps going with shorter and shorter totals until the solution fits the requested length or time runs out.
+ */
+
+public class TwoPhaseSolver {
+
+    static final int DEFAULT_MAX_LENGTH = 21;
+    static final long DEFAULT_TIMEOUT = 2000;
+    static final int TABLES = MoveTables.TABLES + 4;
+    private static final int MAX_PHASE1_DEPTH = 12;
+    private static final int MAX_PHASE2_DEPTH = 18;
+    private static final int[] phase1Moves = setupPhase1Moves();
+    private static final int[] phase2Moves = setupPhase2Moves();
+
+    private final CubieState start;
+    private final CubieState scratch = new CubieState();
+    private final int[] moves = new int[MAX_PHASE1_DEPTH + MAX_PHASE2_DEPTH];
+    private final int maxLength;
+    private final long deadline;
+    private int[] solution;
+    private int bestLength;
+    private long nodes;
+
+    private TwoPhaseSolver(CubieState start, int maxLength, long timeoutMillis) {
+        this.start = start;
+        this.maxLength = maxLength;
+        deadline = System.nanoTime() + timeoutMillis * 1000000;
+        bestLength = MAX_PHASE1_DEPTH + MAX_PHASE2_DEPTH + 1;
+    }
+
+    private static final class Tables {
+        static final PruningTable twistSlice = PruningTable.cached("twist-slice", CubieState.TWISTS * CubieState.SLICES,
+                () -> PruningTable.build(CubieState.TWISTS, MoveTables.twistMove, CubieState.SLICES, MoveTables.sliceMove, MoveTables.SOLVED_SLICE, phase1Moves));
+        static final PruningTable flipSlice = PruningTable.cached("flip-slice", CubieState.FLIPS * CubieState.SLICES,
+                () -> PruningTable.build(CubieState.FLIPS, MoveTables.flipMove, CubieState.SLICES, MoveTables.sliceMove, MoveTables.SOLVED_SLICE, phase1Moves));
+        static final PruningTable cornerSlicePermutation = PruningTable.cached("corner-slice-permutation", CubieState.CORNER_PERMUTATIONS * CubieState.SLICE_PERMUTATIONS,
+                () -> PruningTable.build(CubieState.CORNER_PERMUTATIONS, MoveTables.cornerPermutationMove, CubieState.SLICE_PERMUTATIONS, MoveTables.slicePermutationMove, 0, phase2Moves));
+        static final PruningTable edgeSlicePermutation = PruningTable.cached("edge-slice-permutation", CubieState.UD_EDGE_PERMUTATIONS * CubieState.SLICE_PERMUTATIONS,
+                () -> PruningTable.build(CubieState.UD_EDGE_PERMUTATIONS, MoveTables.udEdgePermutationMove, CubieState.SLICE_PERMUTATIONS, MoveTables.slicePermutationMove, 0, phase2Moves));
+    }
+
+    private static int[] setupPhase1Moves() {
+        int[] moves = new int[CubieState.MOVE_COUNT];
+        for (int count = 0; count < CubieState.MOVE_COUNT; count ++)
+            moves[count] = count;
+        return moves;
+    }
+
+    private static int[] setupPhase2Moves() {
+        int quantity = 0;
+        for (int count = 0; count < CubieState.MOVE_COUNT; count ++)
+            if (MoveTables.keepsSlice(count))
+                quantity ++;
+        int[] moves = new int[quantity];
+        quantity = 0;
+        for (int count = 0; count < CubieState.MOVE_COUNT; count ++)
+            if (MoveTables.keepsSlice(count))
+                moves[quantity ++] = count;
+        return moves;
+    }
+
+    /**
+     * Builds the move and pruning tables, which otherwise happens on the first solve.
+     */
+    public static void prepare() {
+        Tables.twistSlice.get(0);
+    }
+
+    public static String[] solve(CubeState state) {
+        return solve(state, DEFAULT_MAX_LENGTH, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Returns the first solution of at most maxLength face moves, or the shortest one found before the timeout.
+     */
+    public static String[] solve(CubeState state, int maxLength, long timeoutMillis) {
+        CubieState cubie = CubieState.fromState(state);
+        if (!cubie.isSolvable())
+            throw new IllegalArgumentException("Unsolvable cube");
+        prepare();
+        TwoPhaseSolver solver = new TwoPhaseSolver(cubie, maxLength, timeoutMillis);
+        solver.search();
+        String[] solverMoves = new String[solver.solution.length];
+        for (int count = 0; count < solverMoves.length; count ++)
+            solverMoves[count] = CubieState.FACE_MOVES[solver.solution[count]];
+        return solverMoves;
+    }
+
+    private void search() {
+        int twist = start.getTwist(), flip = start.getFlip(), slice = start.getSlice();
+        for (int depth = 0; depth <= MAX_PHASE1_DEPTH && depth < bestLength; depth ++)
+            if (phase1(twist, flip, slice, 0, depth))
+                return;
+    }
+
+    /**
+     * Returns true when the search is over, either with a short enough solution or because of the timeout.
+     */
+    private boolean phase1(int twist, int flip, int slice, int depth, int togo) {
+        if (togo == 0) {
+            if (twist != 0 || flip != 0 || slice != MoveTables.SOLVED_SLICE)
+                return false;
+            if (depth > 0 && MoveTables.keepsSlice(moves[depth - 1]))
+                return false;
+            return startPhase2(depth);
+        }
+        if ((++ nodes & 0xfff) == 0 && System.nanoTime() > deadline && solution != null)
+            return true;
+        if (Tables.twistSlice.get(twist * CubieState.SLICES + slice) > togo || Tables.flipSlice.get(flip * CubieState.SLICES + slice) > togo)
+            return false;
+        for (int move : phase1Moves) {
+            if (depth > 0 && CubieState.isRedundant(move, moves[depth - 1]))
+                continue;
+            moves[depth] = move;
+            if (phase1(MoveTables.twistMove[twist * CubieState.MOVE_COUNT + move], MoveTables.flipMove[flip * CubieState.MOVE_COUNT + move],
+                    MoveTables.sliceMove[slice * CubieState.MOVE_COUNT + move], depth + 1, togo - 1))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean startPhase2(int depth1) {
+        System.arraycopy(start.cornerPermutation, 0, scratch.cornerPermutation, 0, CubieState.CORNERS);
+        System.arraycopy(start.cornerOrientation, 0, scratch.cornerOrientation, 0, CubieState.CORNERS);
+        System.arraycopy(start.edgePermutation, 0, scratch.edgePermutation, 0, CubieState.EDGES);
+        System.arraycopy(start.edgeOrientation, 0, scratch.edgeOrientation, 0, CubieState.EDGES);
+        for (int count = 0; count < depth1; count ++)
+            scratch.applyMove(moves[count]);
+        int corner = scratch.getCornerPermutation(), edge = scratch.getUDEdgePermutation(), slicePermutation = scratch.getSlicePermutation();
+        int maxDepth2 = Math.min(MAX_PHASE2_DEPTH, bestLength - 1 - depth1);
+        for (int depth2 = 0; depth2 <= maxDepth2; depth2 ++)
+            if (phase2(corner, edge, slicePermutation, depth1, depth2)) {
+                bestLength = depth1 + depth2;
+                solution = new int[bestLength];
+                System.arraycopy(moves, 0, solution, 0, bestLength);
+                return bestLength <= maxLength;
+            }
+        return false;
+    }
+
+    private boolean phase2(int corner, int edge, int slicePermutation, int depth, int togo) {
+        if (togo == 0)
+            return corner == 0 && edge == 0 && slicePermutation == 0;
+        if (Tables.cornerSlicePermutation.get(corner * CubieState.SLICE_PERMUTATIONS + slicePermutation) > togo
+                || Tables.edgeSlicePermutation.get(edge * CubieState.SLICE_PERMUTATIONS + slicePermutation) > togo)
+            return false;
+        for (int move : phase2Moves) {
+            if (depth > 0 && CubieState.isRedundant(move, moves[depth - 1]))
+                continue;
+            moves[depth] = move;
+            if (phase2(MoveTables.cornerPermutationMove[corner * CubieState.MOVE_COUNT + move], MoveTables.udEdgePermutationMove[edge * CubieState.MOVE_COUNT + move],
+                    MoveTables.slicePermutationMove[slicePermutation * CubieState.MOVE_COUNT + move], depth + 1, togo - 1))
+                return true;
+        }
+        return false;
+    }
+}